@@ -0,0 +1,633 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor;
+
+import se.natusoft.tools.fileeditor.internal.ChannelLineWriter;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This is an implementation of the TextBuffer interface that keeps the lines in a B+-tree of
+ * fixed size line blocks.
+ * <p>
+ * Each inner node knows the number of lines below it, which makes getLine(), setLine(),
+ * insertLine() and removeLine() O(log n) no matter where in the buffer they are done. Splicing
+ * lines into the middle of a huge file thereby only moves lines within one block instead of
+ * shifting all following lines.
+ * <p>
+ * The leaf blocks are linked and the last accessed block is remembered, so walking the lines
+ * in order costs about the same as walking an array.
+ *
+ * @see se.natusoft.tools.fileeditor.TextFileEditor
+ */
+public class BTreeTextBuffer implements TextBuffer {
+
+    //
+    // Constants
+    //
+
+    /** The max number of lines in a leaf block. */
+    private static final int LEAF_SIZE = 128;
+
+    /** The max number of children of an inner node. */
+    private static final int BRANCH_SIZE = 64;
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * Common base of leaf and inner nodes.
+     */
+    private static abstract class Node {
+        /** The number of lines in this node and below. */
+        int size = 0;
+
+        /** The number of entries in this node. */
+        int count = 0;
+
+        /**
+         * Returns true if this node has too few entries.
+         */
+        abstract boolean isUnderflowing();
+    }
+
+    /**
+     * A block of lines.
+     */
+    private static class Leaf extends Node {
+        /** The lines of the block. One extra slot is available for an overflowing insert before split. */
+        private String[] lines = new String[LEAF_SIZE + 1];
+
+        /** The next block or null if this is the last. */
+        private Leaf next = null;
+
+        boolean isUnderflowing() {
+            return this.count < LEAF_SIZE / 2;
+        }
+    }
+
+    /**
+     * An inner node.
+     */
+    private static class Inner extends Node {
+        /** The children of the node. One extra slot is available for an overflowing insert before split. */
+        private Node[] children = new Node[BRANCH_SIZE + 1];
+
+        boolean isUnderflowing() {
+            return this.count < BRANCH_SIZE / 2;
+        }
+
+        /**
+         * Recalculates the number of lines below this node.
+         */
+        private void updateSize() {
+            int size = 0;
+            for (int i = 0; i < this.count; i++) {
+                size += this.children[i].size;
+            }
+            this.size = size;
+        }
+    }
+
+    /**
+     * Remembers the last accessed leaf. This is immutable so that concurrent readers always see
+     * a consistent cursor.
+     */
+    private static class LeafCursor {
+        /** The leaf. */
+        private final Leaf leaf;
+
+        /** The buffer line number of the first line in the leaf. */
+        private final int firstLine;
+
+        private LeafCursor(Leaf leaf, int firstLine) {
+            this.leaf = leaf;
+            this.firstLine = firstLine;
+        }
+    }
+
+    //
+    // Private Members
+    //
+
+    /** Holds the path of the loaded file. */
+    private File loadedFile = null;
+
+    /** The charset of the loaded file. */
+    private Charset charset = null;
+
+    /** The root of the tree. */
+    private Node root = new Leaf();
+
+    /** The last accessed leaf or null if not valid. */
+    private LeafCursor cursor = null;
+
+    /** Set to true to make buffer read only. */
+    private boolean readOnly = false;
+
+    /** Incremented every time the content of the buffer changes. */
+    private long modCount = 0;
+
+    /** The modification count when the buffer was last loaded or saved. */
+    private long savedModCount = 0;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new instance of BTreeTextBuffer using the platform default charset.
+     */
+    public BTreeTextBuffer() {
+        this(Charset.defaultCharset());
+    }
+
+    /**
+     * Creates a new instance of BTreeTextBuffer.
+     *
+     * @param charset The charset of the files to load and save.
+     */
+    public BTreeTextBuffer(Charset charset) {
+        this.charset = charset;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * If true makes the buffer read only.
+     *
+     * @param readOnly Set to true to make buffer read only. Defaults to false.
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Returns true if the buffer has been changed since it was loaded or last saved.
+     */
+    public boolean isModified() {
+        return this.modCount != this.savedModCount;
+    }
+
+    /**
+     * Returns a count that is increased every time the content of the buffer changes.
+     */
+    public long getModificationCount() {
+        return this.modCount;
+    }
+
+    /**
+     * Loads a text file into the buffer.
+     *
+     * @param file The file to load.
+     */
+    public void load(File file) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), this.charset));
+        try {
+            List<Node> leaves = new ArrayList<Node>();
+            Leaf leaf = new Leaf();
+            leaves.add(leaf);
+            String line = reader.readLine();
+            while (line != null) {
+                if (leaf.count == LEAF_SIZE) {
+                    Leaf next = new Leaf();
+                    leaf.next = next;
+                    leaf = next;
+                    leaves.add(leaf);
+                }
+                leaf.lines[leaf.count++] = line;
+                ++leaf.size;
+                line = reader.readLine();
+            }
+            this.loadedFile = file;
+            this.root = buildTree(leaves);
+            this.cursor = null;
+        }
+        finally {
+            reader.close();
+        }
+        ++this.modCount;
+        this.savedModCount = this.modCount;
+    }
+
+    /**
+     * Builds the inner nodes on top of a list of full leaves.
+     *
+     * @param nodes The leaves to build on.
+     *
+     * @return The root of the tree.
+     */
+    private Node buildTree(List<Node> nodes) {
+        while (nodes.size() > 1) {
+            List<Node> parents = new ArrayList<Node>();
+            Inner parent = null;
+            for (Node node : nodes) {
+                if (parent == null || parent.count == BRANCH_SIZE) {
+                    parent = new Inner();
+                    parents.add(parent);
+                }
+                parent.children[parent.count++] = node;
+                parent.size += node.size;
+            }
+            nodes = parents;
+        }
+        return nodes.get(0);
+    }
+
+    /**
+     * Loads a text file into the buffer.
+     *
+     * @param path The path to the file to load.
+     */
+    public void load(String path) throws IOException {
+        load(new File(path));
+    }
+
+    /**
+     * Saves the buffer back to disk again.
+     * <p>
+     * This does nothing if the buffer has not been modified since it was loaded or last saved.
+     */
+    public void save() throws IOException {
+        if (isModified()) {
+            saveAs(this.loadedFile);
+            this.savedModCount = this.modCount;
+        }
+    }
+
+    /**
+     * Saves the buffer to another file.
+     *
+     * @param file The file to save to.
+     */
+    public void saveAs(File file) throws IOException {
+        ChannelLineWriter writer = new ChannelLineWriter(file, this.charset);
+        try {
+            for (Leaf leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+                for (int i = 0; i < leaf.count; i++) {
+                    writer.writeLine(leaf.lines[i]);
+                }
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Saves the buffer to another file.
+     *
+     * @param path The path to the file to save to.
+     */
+    public void saveAs(String path) throws IOException {
+        saveAs(new File(path));
+    }
+
+    /**
+     * Clears the buffer.
+     */
+    public void clear() {
+        if (!this.readOnly) {
+            ++this.modCount;
+            this.root = new Leaf();
+            this.cursor = null;
+        }
+    }
+
+    /**
+     * Returns the number of lines in the buffer.
+     */
+    public int getSize() {
+        return this.root.size;
+    }
+
+    /**
+     * Returns the first leaf of the tree.
+     */
+    private Leaf firstLeaf() {
+        Node node = this.root;
+        while (node instanceof Inner) {
+            node = ((Inner)node).children[0];
+        }
+        return (Leaf)node;
+    }
+
+    /**
+     * Returns a cursor for the leaf holding the specified line.
+     *
+     * @param line The line to locate.
+     */
+    private LeafCursor locate(int line) {
+        if (line < 0 || line >= this.root.size) {
+            throw new IndexOutOfBoundsException("Line " + line + " is not within 0 - " + (this.root.size - 1) + "!");
+        }
+        LeafCursor cursor = this.cursor;
+        if (cursor != null) {
+            int offset = line - cursor.firstLine;
+            if (offset >= 0 && offset < cursor.leaf.count) {
+                return cursor;
+            }
+            if (offset == cursor.leaf.count && cursor.leaf.next != null) {
+                cursor = new LeafCursor(cursor.leaf.next, line);
+                this.cursor = cursor;
+                return cursor;
+            }
+        }
+
+        Node node = this.root;
+        int firstLine = 0;
+        while (node instanceof Inner) {
+            Inner inner = (Inner)node;
+            int ci = 0;
+            while (line - firstLine >= inner.children[ci].size) {
+                firstLine += inner.children[ci].size;
+                ++ci;
+            }
+            node = inner.children[ci];
+        }
+        cursor = new LeafCursor((Leaf)node, firstLine);
+        this.cursor = cursor;
+        return cursor;
+    }
+
+    /**
+     * Gets a specific line from the buffer.
+     *
+     * @param line The line to get.
+     */
+    public String getLine(int line) {
+        LeafCursor cursor = locate(line);
+        return cursor.leaf.lines[line - cursor.firstLine];
+    }
+
+    /**
+     * Replaces a specific line in the buffer.
+     *
+     * @param line The line to replace.
+     * @param text The new text for the line.
+     */
+    public void setLine(int line, String text) {
+        if (!this.readOnly) {
+            ++this.modCount;
+            LeafCursor cursor = locate(line);
+            cursor.leaf.lines[line - cursor.firstLine] = text;
+        }
+    }
+
+    /**
+     * Removes the specified line.
+     *
+     * @param line The line to remove.
+     */
+    public void removeLine(int line) {
+        if (!this.readOnly) {
+            ++this.modCount;
+            if (line < 0 || line >= this.root.size) {
+                throw new IndexOutOfBoundsException("Line " + line + " is not within 0 - " + (this.root.size - 1) + "!");
+            }
+            this.cursor = null;
+            remove(this.root, line);
+            if (this.root instanceof Inner && this.root.count == 1) {
+                this.root = ((Inner)this.root).children[0];
+            }
+        }
+    }
+
+    /**
+     * Removes a line from a node.
+     *
+     * @param node The node to remove from.
+     * @param line The line to remove relative to the node.
+     */
+    private void remove(Node node, int line) {
+        --node.size;
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf)node;
+            System.arraycopy(leaf.lines, line + 1, leaf.lines, line, leaf.count - line - 1);
+            leaf.lines[--leaf.count] = null;
+        }
+        else {
+            Inner inner = (Inner)node;
+            int ci = 0;
+            while (line >= inner.children[ci].size) {
+                line -= inner.children[ci].size;
+                ++ci;
+            }
+            Node child = inner.children[ci];
+            remove(child, line);
+            if (child.isUnderflowing() && inner.count > 1) {
+                if (ci == inner.count - 1) {
+                    --ci;
+                }
+                rebalance(inner, ci);
+            }
+        }
+    }
+
+    /**
+     * Rebalances two neighbouring children of an inner node by either merging them or evenly
+     * redistributing their entries.
+     *
+     * @param parent The parent of the children.
+     * @param ci The index of the left child. The right child is at ci + 1.
+     */
+    private void rebalance(Inner parent, int ci) {
+        Node left = parent.children[ci];
+        Node right = parent.children[ci + 1];
+        int total = left.count + right.count;
+        int max = left instanceof Leaf ? LEAF_SIZE : BRANCH_SIZE;
+        int leftCount = total <= max ? total : total / 2;
+
+        if (left instanceof Leaf) {
+            Leaf l = (Leaf)left;
+            Leaf r = (Leaf)right;
+            String[] all = new String[total];
+            System.arraycopy(l.lines, 0, all, 0, l.count);
+            System.arraycopy(r.lines, 0, all, l.count, r.count);
+            Arrays.fill(l.lines, null);
+            Arrays.fill(r.lines, null);
+            System.arraycopy(all, 0, l.lines, 0, leftCount);
+            System.arraycopy(all, leftCount, r.lines, 0, total - leftCount);
+            l.count = l.size = leftCount;
+            r.count = r.size = total - leftCount;
+            if (r.count == 0) {
+                l.next = r.next;
+            }
+        }
+        else {
+            Inner l = (Inner)left;
+            Inner r = (Inner)right;
+            Node[] all = new Node[total];
+            System.arraycopy(l.children, 0, all, 0, l.count);
+            System.arraycopy(r.children, 0, all, l.count, r.count);
+            Arrays.fill(l.children, null);
+            Arrays.fill(r.children, null);
+            System.arraycopy(all, 0, l.children, 0, leftCount);
+            System.arraycopy(all, leftCount, r.children, 0, total - leftCount);
+            l.count = leftCount;
+            r.count = total - leftCount;
+            l.updateSize();
+            r.updateSize();
+        }
+
+        if (right.count == 0) {
+            System.arraycopy(parent.children, ci + 2, parent.children, ci + 1, parent.count - ci - 2);
+            parent.children[--parent.count] = null;
+        }
+    }
+
+    /**
+     * Inserts a new line at the specified position.
+     *
+     * @param line the poistion to insert at.
+     * @param text The text to insert.
+     */
+    public void insertLine(int line, String text) {
+        if (!this.readOnly) {
+            ++this.modCount;
+            if (line < 0 || line > this.root.size) {
+                throw new IndexOutOfBoundsException("Line " + line + " is not within 0 - " + this.root.size + "!");
+            }
+            this.cursor = null;
+            Node split = insert(this.root, line, text);
+            if (split != null) {
+                Inner newRoot = new Inner();
+                newRoot.children[0] = this.root;
+                newRoot.children[1] = split;
+                newRoot.count = 2;
+                newRoot.updateSize();
+                this.root = newRoot;
+            }
+        }
+    }
+
+    /**
+     * Inserts a line into a node.
+     *
+     * @param node The node to insert into.
+     * @param line The line to insert at relative to the node.
+     * @param text The text to insert.
+     *
+     * @return A new right sibling if the node had to be split, null otherwise.
+     */
+    private Node insert(Node node, int line, String text) {
+        ++node.size;
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf)node;
+            System.arraycopy(leaf.lines, line, leaf.lines, line + 1, leaf.count - line);
+            leaf.lines[line] = text;
+            ++leaf.count;
+            if (leaf.count > LEAF_SIZE) {
+                Leaf right = new Leaf();
+                right.count = right.size = leaf.count / 2;
+                leaf.count = leaf.size = leaf.count - right.count;
+                System.arraycopy(leaf.lines, leaf.count, right.lines, 0, right.count);
+                Arrays.fill(leaf.lines, leaf.count, leaf.lines.length, null);
+                right.next = leaf.next;
+                leaf.next = right;
+                return right;
+            }
+        }
+        else {
+            Inner inner = (Inner)node;
+            int ci = 0;
+            while (ci < inner.count - 1 && line >= inner.children[ci].size) {
+                line -= inner.children[ci].size;
+                ++ci;
+            }
+            Node split = insert(inner.children[ci], line, text);
+            if (split != null) {
+                System.arraycopy(inner.children, ci + 1, inner.children, ci + 2, inner.count - ci - 1);
+                inner.children[ci + 1] = split;
+                ++inner.count;
+                if (inner.count > BRANCH_SIZE) {
+                    Inner right = new Inner();
+                    right.count = inner.count / 2;
+                    inner.count -= right.count;
+                    System.arraycopy(inner.children, inner.count, right.children, 0, right.count);
+                    Arrays.fill(inner.children, inner.count, inner.children.length, null);
+                    inner.updateSize();
+                    right.updateSize();
+                    return right;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a line of text to the end of the buffer.
+     *
+     * @param text The text to add.
+     */
+    public void addLine(String text) {
+        insertLine(this.root.size, text);
+    }
+
+    /**
+     * Returns a new instance of the buffer.
+     */
+    public TextBuffer newInstance() {
+        BTreeTextBuffer tb = new BTreeTextBuffer(this.charset);
+        tb.loadedFile = this.loadedFile;
+        return tb;
+    }
+
+    /**
+     * Returns the buffer as a String.
+     */
+    @Override
+    public String toString() {
+        StringWriter stringWriter = new StringWriter();
+        PrintWriter printWriter = new PrintWriter(stringWriter);
+        for (Leaf leaf = firstLeaf(); leaf != null; leaf = leaf.next) {
+            for (int i = 0; i < leaf.count; i++) {
+                printWriter.println(leaf.lines[i]);
+            }
+        }
+        printWriter.close();
+        return stringWriter.toString();
+    }
+}
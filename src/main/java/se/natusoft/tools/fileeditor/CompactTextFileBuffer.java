@@ -0,0 +1,706 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor;
+
+import se.natusoft.tools.fileeditor.internal.MappedFile;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This is a memory compact implementation of the TextBuffer interface.
+ * <p>
+ * Instead of one String per line all lines are kept encoded in large shared byte[] arenas
+ * with an int[] table of where each line starts and how long it is. A String is created first
+ * when a line is asked for. For mostly ASCII text this uses about a third of the memory of
+ * a TextFileBuffer.
+ * <p>
+ * Lines are stored encoded with the charset of the loaded file so loading and saving does not
+ * need to decode or encode anything. Replaced and removed lines leave garbage in the arenas that
+ * is reclaimed by compacting the arenas when it becomes larger than the live data.
+ * <p>
+ * Please note that only charsets where '\n' and '\r' are single byte ASCII values can be used,
+ * which is true for UTF-8 and all ISO-8859 charsets among others. The total size of the buffer
+ * is limited to 2GB.
+ *
+ * @see se.natusoft.tools.fileeditor.TextFileEditor
+ */
+public class CompactTextFileBuffer implements TextBuffer {
+
+    //
+    // Constants
+    //
+
+    /** The number of address bits within one arena. */
+    private static final int ARENA_BITS = 20;
+
+    /** The size of each arena. */
+    private static final int ARENA_SIZE = 1 << ARENA_BITS;
+
+    /** Masks out the address within an arena. */
+    private static final int ARENA_MASK = ARENA_SIZE - 1;
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * A read only view of an ISO-8859-1 encoded line in an arena. Since ISO-8859-1 maps each
+     * byte directly to a char this can be read without decoding.
+     */
+    private static class Latin1Chars implements CharSequence {
+        /** The arena holding the line. Arena content is never overwritten, only appended to. */
+        private final byte[] arena;
+
+        /** The offset of the first char within the arena. */
+        private final int offset;
+
+        /** The number of chars. */
+        private final int length;
+
+        private Latin1Chars(byte[] arena, int offset, int length) {
+            this.arena = arena;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public int length() {
+            return this.length;
+        }
+
+        public char charAt(int index) {
+            if (index < 0 || index >= this.length) {
+                throw new IndexOutOfBoundsException("index " + index + ", length " + this.length);
+            }
+            return (char)(this.arena[this.offset + index] & 0xff);
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > this.length || start > end) {
+                throw new IndexOutOfBoundsException("start " + start + ", end " + end + ", length " + this.length);
+            }
+            return new Latin1Chars(this.arena, this.offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(this.arena, this.offset, this.length, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    //
+    // Private Members
+    //
+
+    /** Holds the path of the loaded file. */
+    private File loadedFile = null;
+
+    /** The charset of the loaded file and of the stored lines. */
+    private Charset charset = null;
+
+    /** True if the charset is ISO-8859-1 which allows lines to be read without decoding. */
+    private boolean latin1 = false;
+
+    /** The arenas holding the encoded lines. Together they form one contiguous address space. */
+    private byte[][] arenas = new byte[0][];
+
+    /** The next free address in the arenas. */
+    private int top = 0;
+
+    /** The number of bytes in the arenas no longer used by any line. */
+    private int garbage = 0;
+
+    /** The address of each line. */
+    private int[] starts = new int[16];
+
+    /** The length in bytes of each line. */
+    private int[] lengths = new int[16];
+
+    /** The number of lines in the buffer. */
+    private int size = 0;
+
+    /** Set to true to make buffer read only. */
+    private boolean readOnly = false;
+
+    /** Incremented every time the content of the buffer changes. */
+    private long modCount = 0;
+
+    /** The modification count when the buffer was last loaded or saved. */
+    private long savedModCount = 0;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new instance of CompactTextFileBuffer using the platform default charset.
+     */
+    public CompactTextFileBuffer() {
+        this(Charset.defaultCharset());
+    }
+
+    /**
+     * Creates a new instance of CompactTextFileBuffer.
+     *
+     * @param charset The charset of the files to load and save.
+     */
+    public CompactTextFileBuffer(Charset charset) {
+        if (!MappedFile.isAsciiCompatible(charset)) {
+            throw new IllegalArgumentException("Charset '" + charset + "' cannot be split into lines without decoding!");
+        }
+        this.charset = charset;
+        this.latin1 = StandardCharsets.ISO_8859_1.equals(charset);
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * If true makes the buffer read only.
+     *
+     * @param readOnly Set to true to make buffer read only. Defaults to false.
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Returns true if the buffer has been changed since it was loaded or last saved.
+     */
+    public boolean isModified() {
+        return this.modCount != this.savedModCount;
+    }
+
+    /**
+     * Returns a count that is increased every time the content of the buffer changes.
+     */
+    public long getModificationCount() {
+        return this.modCount;
+    }
+
+    /**
+     * Loads a text file into the buffer.
+     * <p>
+     * The file is read as is into the arenas after which the lines are located. No decoding is done.
+     *
+     * @param file The file to load.
+     */
+    public void load(File file) throws IOException {
+        if (file.length() > Integer.MAX_VALUE) {
+            throw new IOException("File '" + file + "' is too large for a CompactTextFileBuffer!");
+        }
+        InputStream in = new FileInputStream(file);
+        try {
+            clearAll();
+            int length = (int)file.length();
+            ensureCapacity(length);
+            int read = 0;
+            while (this.top < length && read >= 0) {
+                int offset = this.top & ARENA_MASK;
+                read = in.read(this.arenas[this.top >>> ARENA_BITS], offset, Math.min(length - this.top, ARENA_SIZE - offset));
+                if (read > 0) {
+                    this.top += read;
+                }
+            }
+            this.loadedFile = file;
+        }
+        finally {
+            in.close();
+        }
+
+        int lineStart = 0;
+        for (int address = 0; address < this.top; address++) {
+            byte b = byteAt(address);
+            if (b == '\n' || b == '\r') {
+                addIndex(lineStart, address - lineStart);
+                if (b == '\r' && address + 1 < this.top && byteAt(address + 1) == '\n') {
+                    ++address;
+                }
+                lineStart = address + 1;
+            }
+        }
+        if (lineStart < this.top) {
+            addIndex(lineStart, this.top - lineStart);
+        }
+        this.garbage = this.top - usedBytes();
+        ++this.modCount;
+        this.savedModCount = this.modCount;
+    }
+
+    /**
+     * Loads a text file into the buffer.
+     *
+     * @param path The path to the file to load.
+     */
+    public void load(String path) throws IOException {
+        load(new File(path));
+    }
+
+    /**
+     * Saves the buffer back to disk again.
+     * <p>
+     * This does nothing if the buffer has not been modified since it was loaded or last saved.
+     */
+    public void save() throws IOException {
+        if (isModified()) {
+            saveAs(this.loadedFile);
+            this.savedModCount = this.modCount;
+        }
+    }
+
+    /**
+     * Saves the buffer to another file.
+     * <p>
+     * Since lines are stored encoded they are written as is.
+     *
+     * @param file The file to save to.
+     */
+    public void saveAs(File file) throws IOException {
+        byte[] lineSeparator = System.lineSeparator().getBytes(this.charset);
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 65536);
+        try {
+            for (int i = 0; i < this.size; i++) {
+                int address = this.starts[i];
+                int length = this.lengths[i];
+                while (length > 0) {
+                    int offset = address & ARENA_MASK;
+                    int count = Math.min(length, ARENA_SIZE - offset);
+                    out.write(this.arenas[address >>> ARENA_BITS], offset, count);
+                    address += count;
+                    length -= count;
+                }
+                out.write(lineSeparator);
+            }
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Saves the buffer to another file.
+     *
+     * @param path The path to the file to save to.
+     */
+    public void saveAs(String path) throws IOException {
+        saveAs(new File(path));
+    }
+
+    /**
+     * Clears the buffer.
+     */
+    public void clear() {
+        if (!this.readOnly) {
+            ++this.modCount;
+            clearAll();
+        }
+    }
+
+    /**
+     * Releases all lines and arenas.
+     */
+    private void clearAll() {
+        this.arenas = new byte[0][];
+        this.top = 0;
+        this.garbage = 0;
+        this.starts = new int[16];
+        this.lengths = new int[16];
+        this.size = 0;
+    }
+
+    /**
+     * Returns the number of lines in the buffer.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Returns the byte at the specified address.
+     *
+     * @param address The address of the byte.
+     */
+    private byte byteAt(int address) {
+        return this.arenas[address >>> ARENA_BITS][address & ARENA_MASK];
+    }
+
+    /**
+     * Returns the number of bytes used by lines.
+     */
+    private int usedBytes() {
+        long used = 0;
+        for (int i = 0; i < this.size; i++) {
+            used += this.lengths[i];
+        }
+        return (int)used;
+    }
+
+    /**
+     * Makes sure the arenas can hold all addresses up to the specified end. Arenas are allocated
+     * lazily and the last arena grows on demand so that small buffers stay small.
+     *
+     * @param end The address after the last address that must be available.
+     */
+    private void ensureCapacity(int end) {
+        if (end == 0) {
+            return;
+        }
+        int lastArena = (end - 1) >>> ARENA_BITS;
+        if (lastArena >= this.arenas.length) {
+            this.arenas = Arrays.copyOf(this.arenas, lastArena + 1);
+        }
+        for (int i = Math.min(this.top >>> ARENA_BITS, lastArena); i <= lastArena; i++) {
+            int needed = i < lastArena ? ARENA_SIZE : ((end - 1) & ARENA_MASK) + 1;
+            byte[] arena = this.arenas[i];
+            if (arena == null || arena.length < needed) {
+                int capacity = ARENA_SIZE;
+                if (i == lastArena) {
+                    capacity = Math.min(ARENA_SIZE, Math.max(needed, arena == null ? 256 : arena.length * 2));
+                }
+                this.arenas[i] = arena == null ? new byte[capacity] : Arrays.copyOf(arena, capacity);
+            }
+        }
+    }
+
+    /**
+     * Makes room in the line table for one more line.
+     */
+    private void ensureIndexCapacity() {
+        ensureIndexCapacity(this.size + 1);
+    }
+
+    /**
+     * Makes sure the line table has room for the specified number of lines.
+     *
+     * @param lines The number of lines that must fit.
+     */
+    private void ensureIndexCapacity(int lines) {
+        if (lines > this.starts.length) {
+            int capacity = Math.max(lines, this.size + (this.size >> 1));
+            this.starts = Arrays.copyOf(this.starts, capacity);
+            this.lengths = Arrays.copyOf(this.lengths, capacity);
+        }
+    }
+
+    /**
+     * Adds a line to the end of the line table.
+     *
+     * @param start The address of the line.
+     * @param length The length of the line.
+     */
+    private void addIndex(int start, int length) {
+        ensureIndexCapacity();
+        this.starts[this.size] = start;
+        this.lengths[this.size] = length;
+        ++this.size;
+    }
+
+    /**
+     * Encodes text and stores it at the top of the arenas.
+     *
+     * @param text The text to store.
+     *
+     * @return The address of the stored text.
+     */
+    private int store(String text) {
+        return store(text.getBytes(this.charset));
+    }
+
+    /**
+     * Stores bytes at the top of the arenas.
+     *
+     * @param bytes The bytes to store.
+     *
+     * @return The address of the stored bytes.
+     */
+    private int store(byte[] bytes) {
+        if ((long)this.top + bytes.length > Integer.MAX_VALUE) {
+            compact();
+            if ((long)this.top + bytes.length > Integer.MAX_VALUE) {
+                throw new IllegalStateException("CompactTextFileBuffer is full!");
+            }
+        }
+        ensureCapacity(this.top + bytes.length);
+        int address = this.top;
+        int pos = 0;
+        while (pos < bytes.length) {
+            int offset = this.top & ARENA_MASK;
+            int count = Math.min(bytes.length - pos, ARENA_SIZE - offset);
+            System.arraycopy(bytes, pos, this.arenas[this.top >>> ARENA_BITS], offset, count);
+            this.top += count;
+            pos += count;
+        }
+        return address;
+    }
+
+    /**
+     * Copies the bytes of a line into a new array.
+     *
+     * @param arenas The arenas to copy from.
+     * @param address The address of the line.
+     * @param length The length of the line.
+     */
+    private static byte[] copyOut(byte[][] arenas, int address, int length) {
+        byte[] bytes = new byte[length];
+        int pos = 0;
+        while (pos < length) {
+            int offset = address & ARENA_MASK;
+            int count = Math.min(length - pos, ARENA_SIZE - offset);
+            System.arraycopy(arenas[address >>> ARENA_BITS], offset, bytes, pos, count);
+            address += count;
+            pos += count;
+        }
+        return bytes;
+    }
+
+    /**
+     * Adds released bytes to the garbage count and compacts the arenas if there is more garbage
+     * than live data.
+     *
+     * @param released The number of released bytes.
+     */
+    private void release(int released) {
+        this.garbage += released;
+        if (this.garbage > ARENA_SIZE && this.garbage > this.top - this.garbage) {
+            compact();
+        }
+    }
+
+    /**
+     * Copies all lines in order into new arenas leaving all garbage behind.
+     */
+    private void compact() {
+        byte[][] oldArenas = this.arenas;
+        this.arenas = new byte[0][];
+        this.top = 0;
+        this.garbage = 0;
+        for (int i = 0; i < this.size; i++) {
+            this.starts[i] = store(copyOut(oldArenas, this.starts[i], this.lengths[i]));
+        }
+    }
+
+    /**
+     * Gets a specific line from the buffer.
+     *
+     * @param line The line to get.
+     */
+    public String getLine(int line) {
+        checkLine(line, this.size - 1);
+        int address = this.starts[line];
+        int offset = address & ARENA_MASK;
+        int length = this.lengths[line];
+        if (offset + length <= ARENA_SIZE) {
+            return length == 0 ? "" : new String(this.arenas[address >>> ARENA_BITS], offset, length, this.charset);
+        }
+        return new String(copyOut(this.arenas, address, length), this.charset);
+    }
+
+    /**
+     * Returns a read only view of a specific line in the buffer.
+     * <p>
+     * For ISO-8859-1 this reads the line directly from its arena without decoding or copying it.
+     *
+     * @param line The line to get.
+     */
+    public CharSequence getLineChars(int line) {
+        if (this.latin1) {
+            checkLine(line, this.size - 1);
+            int address = this.starts[line];
+            int offset = address & ARENA_MASK;
+            int length = this.lengths[line];
+            if (offset + length <= ARENA_SIZE && length > 0) {
+                return new Latin1Chars(this.arenas[address >>> ARENA_BITS], offset, length);
+            }
+        }
+        return getLine(line);
+    }
+
+    /**
+     * Validates a line number.
+     *
+     * @param line The line number to validate.
+     * @param max The max valid line number.
+     */
+    private void checkLine(int line, int max) {
+        if (line < 0 || line > max) {
+            throw new IndexOutOfBoundsException("Line " + line + " is not within 0 - " + max + "!");
+        }
+    }
+
+    /**
+     * Replaces a specific line in the buffer.
+     *
+     * @param line The line to replace.
+     * @param text The new text for the line.
+     */
+    public void setLine(int line, String text) {
+        if (!this.readOnly) {
+            ++this.modCount;
+            checkLine(line, this.size - 1);
+            int released = this.lengths[line];
+            byte[] bytes = text.getBytes(this.charset);
+            this.starts[line] = store(bytes);
+            this.lengths[line] = bytes.length;
+            release(released);
+        }
+    }
+
+    /**
+     * Removes the specified line.
+     *
+     * @param line The line to remove.
+     */
+    public void removeLine(int line) {
+        if (!this.readOnly) {
+            ++this.modCount;
+            checkLine(line, this.size - 1);
+            int released = this.lengths[line];
+            System.arraycopy(this.starts, line + 1, this.starts, line, this.size - line - 1);
+            System.arraycopy(this.lengths, line + 1, this.lengths, line, this.size - line - 1);
+            --this.size;
+            release(released);
+        }
+    }
+
+    /**
+     * Inserts a new line at the specified position.
+     *
+     * @param line the poistion to insert at.
+     * @param text The text to insert.
+     */
+    public void insertLine(int line, String text) {
+        if (!this.readOnly) {
+            ++this.modCount;
+            checkLine(line, this.size);
+            byte[] bytes = text.getBytes(this.charset);
+            int address = store(bytes);
+            ensureIndexCapacity();
+            System.arraycopy(this.starts, line, this.starts, line + 1, this.size - line);
+            System.arraycopy(this.lengths, line, this.lengths, line + 1, this.size - line);
+            this.starts[line] = address;
+            this.lengths[line] = bytes.length;
+            ++this.size;
+        }
+    }
+
+    /**
+     * Removes a range of lines. This moves the line table only once.
+     *
+     * @param line The first line to remove.
+     * @param count The number of lines to remove.
+     */
+    public void removeLines(int line, int count) {
+        if (!this.readOnly && count > 0) {
+            ++this.modCount;
+            checkLine(line, this.size - 1);
+            checkLine(line + count - 1, this.size - 1);
+            int released = 0;
+            for (int i = line; i < line + count; i++) {
+                released += this.lengths[i];
+            }
+            System.arraycopy(this.starts, line + count, this.starts, line, this.size - line - count);
+            System.arraycopy(this.lengths, line + count, this.lengths, line, this.size - line - count);
+            this.size -= count;
+            release(released);
+        }
+    }
+
+    /**
+     * Inserts a number of lines at the specified position. This moves the line table only once.
+     *
+     * @param line The position to insert at.
+     * @param lines The lines to insert.
+     */
+    public void insertLines(int line, List<String> lines) {
+        if (!this.readOnly && !lines.isEmpty()) {
+            ++this.modCount;
+            checkLine(line, this.size);
+            int count = lines.size();
+            ensureIndexCapacity(this.size + count);
+            System.arraycopy(this.starts, line, this.starts, line + count, this.size - line);
+            System.arraycopy(this.lengths, line, this.lengths, line + count, this.size - line);
+            // The new lines are empty until stored so that the line table is valid if store() compacts.
+            Arrays.fill(this.starts, line, line + count, 0);
+            Arrays.fill(this.lengths, line, line + count, 0);
+            this.size += count;
+            int ix = line;
+            for (String text : lines) {
+                byte[] bytes = text.getBytes(this.charset);
+                this.starts[ix] = store(bytes);
+                this.lengths[ix] = bytes.length;
+                ++ix;
+            }
+        }
+    }
+
+    /**
+     * Adds a line of text to the end of the buffer.
+     *
+     * @param text The text to add.
+     */
+    public void addLine(String text) {
+        insertLine(this.size, text);
+    }
+
+    /**
+     * Returns a new instance of the buffer.
+     */
+    public TextBuffer newInstance() {
+        CompactTextFileBuffer tb = new CompactTextFileBuffer(this.charset);
+        tb.loadedFile = this.loadedFile;
+        return tb;
+    }
+
+    /**
+     * Returns the buffer as a String.
+     */
+    @Override
+    public String toString() {
+        StringWriter stringWriter = new StringWriter();
+        PrintWriter printWriter = new PrintWriter(stringWriter);
+        for (int i = 0; i < this.size; i++) {
+            printWriter.println(getLine(i));
+        }
+        printWriter.close();
+        return stringWriter.toString();
+    }
+}
@@ -37,9 +37,12 @@
  */
 package se.natusoft.tools.fileeditor;
 
+import se.natusoft.tools.fileeditor.internal.LineFinder;
+import se.natusoft.tools.fileeditor.internal.LineReplacer;
+import se.natusoft.tools.fileeditor.internal.LineSearch;
+import se.natusoft.tools.fileeditor.internal.PatternCache;
 import se.natusoft.tools.fileeditor.internal.TextPos;
 
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -292,18 +295,12 @@ public class Line {
      * @return true if anything was replaced.
      */
     public boolean replaceAll(String toReplace, String replaceWith) {
-        boolean replaced = false;
-
-        int ix = 0;
-        while (ix >= 0) {
-            ix = _replace(toReplace, replaceWith, ix);
-            if (ix >= 0) {
-                replaced = true;
-                ix += replaceWith.length();
-            }
+        String replaced = new LineReplacer(toReplace, replaceWith).replace(this.line);
+        if (replaced != null) {
+            this.line = new StringBuilder(replaced);
         }
 
-        return replaced;
+        return replaced != null;
     }
 
     /**
@@ -392,7 +389,7 @@ public class Line {
      * @param column The column to get the character at.
      */
     public char charAt(int column) {
-        return charAt(new TextPos(column));
+        return this.line.charAt(column < 1 ? 0 : column - 1);
     }
 
     /**
@@ -459,21 +456,39 @@ public class Line {
      * @param endAt If not null a regexp that ends searching.
      */
     public TextPos find(String regexp, TextPos fromColumn, String endAt) {
+        return find(PatternCache.get(regexp), fromColumn, PatternCache.getOrNull(endAt));
+    }
+
+    /**
+     * Finds a pattern in the line starting at the specified position.
+     * <p>
+     * Returns the column of the match if found or null otherwise.
+     *
+     * @param pattern The pattern to search for.
+     * @param fromColumn The column to start searching.
+     */
+    public TextPos find(Pattern pattern, TextPos fromColumn) {
+        return find(pattern, fromColumn, null);
+    }
+
+    /**
+     * Finds a pattern in the line starting at the specified position.
+     * <p>
+     * Returns the column of the match if found or null otherwise.
+     *
+     * @param pattern The pattern to search for.
+     * @param fromColumn The column to start searching.
+     * @param endAt If not null a pattern that ends searching.
+     */
+    public TextPos find(Pattern pattern, TextPos fromColumn, Pattern endAt) {
         TextPos result = null;
 
-        if (length() != 0) {
-            Pattern pattern = Pattern.compile(regexp);
-            Matcher matcher = pattern.matcher(this.line);
-            int fromCol = fromColumn.baseZeroValue();
-            if (fromCol >= length()) {
-                fromCol = length() - 1;
-            }
-            if (matcher.find(fromCol)) {
-                result = new TextPos(TextPos.BASE_ZERO, matcher.start());
-            }
-            else if (endAt != null && this.line.toString().matches(endAt)) {
-                result = new TextPos(Integer.MAX_VALUE);
-            }
+        int ix = LineSearch.find(this.line, LineFinder.forPattern(pattern), fromColumn.baseZeroValue(), endAt != null ? endAt.matcher(this.line) : null);
+        if (ix == LineSearch.END_AT) {
+            result = new TextPos(Integer.MAX_VALUE);
+        }
+        else if (ix >= 0) {
+            result = new TextPos(TextPos.BASE_ZERO, ix);
         }
 
         return result;
@@ -510,7 +525,7 @@ public class Line {
      * Returns true if the line is empty.
      */
     public boolean isEmpty() {
-        return this.line.toString().trim().length() == 0;
+        return LineSearch.isBlank(this.line);
     }
 
     /**
@@ -519,7 +534,16 @@ public class Line {
      * @param regexp The regular expression to match.
      */
     public boolean matches(String regexp) {
-        return this.line.toString().matches(regexp);
+        return matches(PatternCache.get(regexp));
+    }
+
+    /**
+     * Returns true if this line matches the specified pattern.
+     *
+     * @param pattern The pattern to match.
+     */
+    public boolean matches(Pattern pattern) {
+        return pattern.matcher(this.line).matches();
     }
 
     /**
@@ -0,0 +1,288 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor;
+
+import se.natusoft.tools.fileeditor.internal.LineIndex;
+import se.natusoft.tools.fileeditor.internal.MappedFile;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * This is a read only implementation of the TextBuffer interface that memory maps the
+ * loaded file instead of reading it into memory.
+ * <p>
+ * When a file is loaded only the start offset of each line is read into memory. A line is
+ * decoded into a String first when it is asked for. This makes it very cheap to load a
+ * huge file just to search it.
+ * <p>
+ * Since the buffer is read only all methods that would modify the buffer will throw an
+ * UnsupportedOperationException. Load the file into a TextFileBuffer if you need to edit it.
+ * <p>
+ * Please note that only charsets where '\n' and '\r' are single byte ASCII values can be used,
+ * which is true for UTF-8 and all ISO-8859 charsets among others.
+ *
+ * @see se.natusoft.tools.fileeditor.TextFileEditor
+ */
+public class MappedTextFileBuffer implements TextBuffer {
+
+    //
+    // Private Members
+    //
+
+    /** Holds the path of the loaded file. */
+    private File loadedFile = null;
+
+    /** The charset of the loaded file. */
+    private Charset charset = null;
+
+    /** The memory mapped file. */
+    private MappedFile mappedFile = null;
+
+    /** The start offset of each line in the mapped file. */
+    private LineIndex lineIndex = new LineIndex(0);
+
+    /** Incremented every time a file is loaded. */
+    private long modCount = 0;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new instance of MappedTextFileBuffer using the platform default charset.
+     */
+    public MappedTextFileBuffer() {
+        this(Charset.defaultCharset());
+    }
+
+    /**
+     * Creates a new instance of MappedTextFileBuffer.
+     *
+     * @param charset The charset of the files to load.
+     */
+    public MappedTextFileBuffer(Charset charset) {
+        if (!MappedFile.isAsciiCompatible(charset)) {
+            throw new IllegalArgumentException("Charset '" + charset + "' cannot be memory mapped!");
+        }
+        this.charset = charset;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * This buffer is always read only.
+     *
+     * @param readOnly Only true is accepted.
+     *
+     * @throws UnsupportedOperationException if readOnly is false.
+     */
+    public void setReadOnly(boolean readOnly) throws UnsupportedOperationException {
+        if (!readOnly) {
+            throw new UnsupportedOperationException("A MappedTextFileBuffer is always read only!");
+        }
+    }
+
+    /**
+     * Since the buffer cannot be modified this always returns false.
+     */
+    public boolean isModified() {
+        return false;
+    }
+
+    /**
+     * Returns a count that is increased every time a file is loaded.
+     */
+    public long getModificationCount() {
+        return this.modCount;
+    }
+
+    /**
+     * Memory maps a text file and indexes its lines.
+     *
+     * @param file The file to load.
+     */
+    public void load(File file) throws IOException {
+        MappedFile mappedFile = new MappedFile(file);
+        this.lineIndex = mappedFile.indexLines();
+        this.mappedFile = mappedFile;
+        this.loadedFile = file;
+        ++this.modCount;
+    }
+
+    /**
+     * Memory maps a text file and indexes its lines.
+     *
+     * @param path The path to the file to load.
+     */
+    public void load(String path) throws IOException {
+        load(new File(path));
+    }
+
+    /**
+     * Since the buffer cannot be modified there is never anything to save, so this does nothing.
+     */
+    public void save() throws IOException {
+    }
+
+    /**
+     * Saves the buffer to another file. This is a plain copy of the loaded file.
+     *
+     * @param file The file to save to.
+     */
+    public void saveAs(File file) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            if (this.loadedFile != null) {
+                FileInputStream in = new FileInputStream(this.loadedFile);
+                try {
+                    FileChannel from = in.getChannel();
+                    FileChannel to = out.getChannel();
+                    long size = from.size();
+                    long pos = 0;
+                    while (pos < size) {
+                        pos += from.transferTo(pos, size - pos, to);
+                    }
+                }
+                finally {
+                    in.close();
+                }
+            }
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Saves the buffer to another file. This is a plain copy of the loaded file.
+     *
+     * @param path The path to the file to save to.
+     */
+    public void saveAs(String path) throws IOException {
+        saveAs(new File(path));
+    }
+
+    /**
+     * Not supported since the buffer is read only.
+     */
+    public void clear() {
+        throw new UnsupportedOperationException("A MappedTextFileBuffer is read only!");
+    }
+
+    /**
+     * Returns the number of lines in the buffer.
+     */
+    public int getSize() {
+        return this.lineIndex.size();
+    }
+
+    /**
+     * Gets a specific line from the buffer.
+     *
+     * @param line The line to get.
+     */
+    public String getLine(int line) {
+        long start = this.lineIndex.start(line);
+        return this.mappedFile.decode(start, this.mappedFile.contentEnd(start, this.lineIndex.next(line)), this.charset);
+    }
+
+    /**
+     * Not supported since the buffer is read only.
+     *
+     * @param line The line to replace.
+     * @param text The new text for the line.
+     */
+    public void setLine(int line, String text) {
+        throw new UnsupportedOperationException("A MappedTextFileBuffer is read only!");
+    }
+
+    /**
+     * Not supported since the buffer is read only.
+     *
+     * @param line The line to remove.
+     */
+    public void removeLine(int line) {
+        throw new UnsupportedOperationException("A MappedTextFileBuffer is read only!");
+    }
+
+    /**
+     * Not supported since the buffer is read only.
+     *
+     * @param line the poistion to insert at.
+     * @param text The text to insert.
+     */
+    public void insertLine(int line, String text) {
+        throw new UnsupportedOperationException("A MappedTextFileBuffer is read only!");
+    }
+
+    /**
+     * Not supported since the buffer is read only.
+     *
+     * @param text The text to add.
+     */
+    public void addLine(String text) {
+        throw new UnsupportedOperationException("A MappedTextFileBuffer is read only!");
+    }
+
+    /**
+     * Returns a new instance of the buffer.
+     */
+    public TextBuffer newInstance() {
+        MappedTextFileBuffer tb = new MappedTextFileBuffer(this.charset);
+        tb.loadedFile = this.loadedFile;
+        return tb;
+    }
+
+    /**
+     * Returns the buffer as a String.
+     */
+    @Override
+    public String toString() {
+        StringWriter stringWriter = new StringWriter();
+        PrintWriter printWriter = new PrintWriter(stringWriter);
+        for (int i = 0; i < getSize(); i++) {
+            printWriter.println(getLine(i));
+        }
+        printWriter.close();
+        return stringWriter.toString();
+    }
+}
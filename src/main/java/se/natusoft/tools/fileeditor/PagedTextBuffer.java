@@ -0,0 +1,699 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor;
+
+import se.natusoft.tools.fileeditor.internal.ChannelLineWriter;
+import se.natusoft.tools.fileeditor.internal.FileReplacer;
+import se.natusoft.tools.fileeditor.internal.LineIndex;
+import se.natusoft.tools.fileeditor.internal.MappedFile;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * This is a paged implementation of the TextBuffer interface for files that are larger than the heap.
+ * <p>
+ * The loaded file is memory mapped and only a sparse index with the offset of every 1024th line
+ * is kept. The lines are divided into pages, and a page is only decoded when one of its lines is
+ * accessed. Decoded pages are kept in a least recently used cache whose size is limited by a
+ * configurable memory ceiling. When a modified page is dropped from the cache it is written to a
+ * temporary spill file from where it is read again when needed. Pages grow and shrink as lines are
+ * inserted and removed and are split when they get too large.
+ * <p>
+ * Please note that only charsets where '\n' and '\r' are single byte ASCII values can be used,
+ * which is true for UTF-8 and all ISO-8859 charsets among others. All methods are synchronized
+ * since even reading a line can change the cache.
+ *
+ * @see se.natusoft.tools.fileeditor.TextFileEditor
+ */
+public class PagedTextBuffer implements TextBuffer {
+
+    //
+    // Constants
+    //
+
+    /** The number of lines in a page when a file is loaded. */
+    private static final int PAGE_LINES = 1024;
+
+    /** A page that grows beyond this number of lines is split in two. */
+    private static final int MAX_PAGE_LINES = 2 * PAGE_LINES;
+
+    /** The default memory ceiling for decoded pages. */
+    public static final long DEFAULT_CACHE_SIZE = 64L * 1024 * 1024;
+
+    /** The estimated memory used by a line in addition to its chars. */
+    private static final int LINE_OVERHEAD = 48;
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * A range of lines. The lines are either in the original file, in the spill file, or only in memory.
+     */
+    private static class Page {
+        /** The number of lines in the page. */
+        private int count;
+
+        /** True if the stored content is in the spill file, false if it is in the original file. */
+        private boolean spilled;
+
+        /** The offset of the stored content or -1 if it is only in memory. */
+        private long start = -1;
+
+        /** The offset after the stored content. */
+        private long end = -1;
+
+        /** The decoded lines or null if the page is not in the cache. */
+        private List<String> lines = null;
+
+        /** True if the lines in memory differ from the stored content. */
+        private boolean dirty = false;
+
+        /** The estimated memory used by the decoded lines. */
+        private long bytes = 0;
+
+        private Page(int count, boolean spilled, long start, long end) {
+            this.count = count;
+            this.spilled = spilled;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    //
+    // Private Members
+    //
+
+    /** Holds the path of the loaded file. */
+    private File loadedFile = null;
+
+    /** The charset of the loaded file. */
+    private Charset charset = null;
+
+    /** The memory mapped original file or null if nothing is loaded. */
+    private MappedFile original = null;
+
+    /** The pages in order. */
+    private List<Page> pages = new ArrayList<Page>();
+
+    /** The buffer line number of the first line of each page. Only valid for pages before firstLinesValid. */
+    private int[] firstLines = new int[0];
+
+    /** The number of pages at the start of pages that have a valid entry in firstLines. */
+    private int firstLinesValid = 0;
+
+    /** The number of lines in the buffer. */
+    private int size = 0;
+
+    /** The decoded pages in least recently used order. */
+    private LinkedHashMap<Page, Page> cache = new LinkedHashMap<Page, Page>(16, 0.75f, true);
+
+    /** The estimated memory used by all decoded pages. */
+    private long cacheBytes = 0;
+
+    /** The memory ceiling for decoded pages. */
+    private long maxCacheBytes;
+
+    /** The spill file or null if nothing has been spilled yet. */
+    private File spillFile = null;
+
+    /** The open spill file. */
+    private RandomAccessFile spill = null;
+
+    /** Set to true to make buffer read only. */
+    private boolean readOnly = false;
+
+    /** Incremented every time the content of the buffer changes. */
+    private long modCount = 0;
+
+    /** The modification count when the buffer was last loaded or saved. */
+    private long savedModCount = 0;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new instance of PagedTextBuffer using the platform default charset and the default cache size.
+     */
+    public PagedTextBuffer() {
+        this(Charset.defaultCharset(), DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new instance of PagedTextBuffer using the default cache size.
+     *
+     * @param charset The charset of the files to load and save.
+     */
+    public PagedTextBuffer(Charset charset) {
+        this(charset, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a new instance of PagedTextBuffer.
+     *
+     * @param charset The charset of the files to load and save.
+     * @param maxCacheBytes The approximate maximum number of bytes of memory to use for decoded lines.
+     */
+    public PagedTextBuffer(Charset charset, long maxCacheBytes) {
+        if (!MappedFile.isAsciiCompatible(charset)) {
+            throw new IllegalArgumentException("Charset '" + charset + "' cannot be memory mapped!");
+        }
+        this.charset = charset;
+        this.maxCacheBytes = maxCacheBytes;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * If true makes the buffer read only.
+     *
+     * @param readOnly Set to true to make buffer read only. Defaults to false.
+     */
+    public synchronized void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Returns true if the buffer has been changed since it was loaded or last saved.
+     */
+    public synchronized boolean isModified() {
+        return this.modCount != this.savedModCount;
+    }
+
+    /**
+     * Returns a count that is increased every time the content of the buffer changes.
+     */
+    public synchronized long getModificationCount() {
+        return this.modCount;
+    }
+
+    /**
+     * Sets the memory ceiling for decoded lines. Pages are dropped from the cache until it is
+     * below the ceiling, but the most recently used page is always kept.
+     *
+     * @param maxCacheBytes The approximate maximum number of bytes of memory to use for decoded lines.
+     */
+    public synchronized void setMaxCacheSize(long maxCacheBytes) throws IOException {
+        this.maxCacheBytes = maxCacheBytes;
+        evict(null);
+    }
+
+    /**
+     * Memory maps a text file and builds a sparse index of its lines.
+     *
+     * @param file The file to load.
+     */
+    public synchronized void load(File file) throws IOException {
+        MappedFile original = new MappedFile(file);
+        LineIndex index = original.indexLines(PAGE_LINES);
+        resetPages();
+        this.original = original;
+        this.loadedFile = file;
+        this.size = index.getLineCount();
+        for (int i = 0; i < index.size(); i++) {
+            int count = Math.min(PAGE_LINES, this.size - i * PAGE_LINES);
+            this.pages.add(new Page(count, false, index.start(i), index.next(i)));
+        }
+        ++this.modCount;
+        this.savedModCount = this.modCount;
+    }
+
+    /**
+     * Memory maps a text file and builds a sparse index of its lines.
+     *
+     * @param path The path to the file to load.
+     */
+    public void load(String path) throws IOException {
+        load(new File(path));
+    }
+
+    /**
+     * Drops all pages and the spill file.
+     */
+    private void resetPages() throws IOException {
+        this.pages = new ArrayList<Page>();
+        this.firstLines = new int[0];
+        this.firstLinesValid = 0;
+        this.size = 0;
+        this.cache.clear();
+        this.cacheBytes = 0;
+        if (this.spill != null) {
+            this.spill.close();
+            this.spill = null;
+            this.spillFile.delete();
+            this.spillFile = null;
+        }
+    }
+
+    /**
+     * Saves the buffer back to disk again.
+     * <p>
+     * Since unmodified pages are still read from the original file the buffer is first written to
+     * a temporary file that then replaces the original file. After that the saved file is loaded
+     * again. This does nothing if the buffer has not been modified since it was loaded or last saved.
+     */
+    public synchronized void save() throws IOException {
+        if (!isModified()) {
+            return;
+        }
+        FileReplacer replacer = new FileReplacer(this.loadedFile);
+        try {
+            writeTo(replacer.getTempFile());
+            replacer.replace();
+        }
+        finally {
+            replacer.cleanup();
+        }
+        load(this.loadedFile);
+    }
+
+    /**
+     * Saves the buffer to another file.
+     *
+     * @param file The file to save to.
+     */
+    public synchronized void saveAs(File file) throws IOException {
+        if (this.loadedFile != null && file.getAbsoluteFile().equals(this.loadedFile.getAbsoluteFile())) {
+            save();
+        }
+        else {
+            writeTo(file);
+        }
+    }
+
+    /**
+     * Saves the buffer to another file.
+     *
+     * @param path The path to the file to save to.
+     */
+    public void saveAs(String path) throws IOException {
+        saveAs(new File(path));
+    }
+
+    /**
+     * Writes the content of the buffer to the specified file. Pages that are not in the cache
+     * are read without being added to the cache.
+     *
+     * @param file The file to write to.
+     *
+     * @throws IOException on failure to write.
+     */
+    private void writeTo(File file) throws IOException {
+        ChannelLineWriter writer = new ChannelLineWriter(file, this.charset);
+        try {
+            for (Page page : this.pages) {
+                for (String line : page.lines != null ? page.lines : read(page)) {
+                    writer.writeLine(line);
+                }
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Clears the buffer.
+     */
+    public synchronized void clear() {
+        if (!this.readOnly) {
+            ++this.modCount;
+            try {
+                resetPages();
+            }
+            catch (IOException ioe) {
+                throw new UncheckedIOException(ioe);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of lines in the buffer.
+     */
+    public synchronized int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Returns the index of the page containing the specified line.
+     *
+     * @param line The line to locate.
+     */
+    private int locate(int line) {
+        if (line < 0 || line >= this.size) {
+            throw new IndexOutOfBoundsException("Line " + line + " is not within 0 - " + (this.size - 1) + "!");
+        }
+        int noPages = this.pages.size();
+        if (this.firstLinesValid < noPages) {
+            if (this.firstLines.length < noPages) {
+                this.firstLines = Arrays.copyOf(this.firstLines, noPages + (noPages >> 1));
+            }
+            int first = 0;
+            int ix = this.firstLinesValid;
+            if (ix > 0) {
+                first = this.firstLines[ix - 1] + this.pages.get(ix - 1).count;
+            }
+            for (; ix < noPages; ix++) {
+                this.firstLines[ix] = first;
+                first += this.pages.get(ix).count;
+            }
+            this.firstLinesValid = noPages;
+        }
+        int ix = Arrays.binarySearch(this.firstLines, 0, noPages, line);
+        return ix >= 0 ? ix : -ix - 2;
+    }
+
+    /**
+     * Marks the first line of the specified page and all following pages as invalid.
+     *
+     * @param page The index of the first page whose first line has changed.
+     */
+    private void invalidateFrom(int page) {
+        this.firstLinesValid = Math.min(this.firstLinesValid, page);
+    }
+
+    /**
+     * Returns the decoded lines of a page, adding the page to the cache if necessary.
+     *
+     * @param page The page to get the lines of.
+     */
+    private List<String> lines(Page page) {
+        if (page.lines != null) {
+            this.cache.get(page);
+            return page.lines;
+        }
+        try {
+            page.lines = read(page);
+            page.bytes = 0;
+            for (String line : page.lines) {
+                page.bytes += estimate(line);
+            }
+            this.cache.put(page, page);
+            this.cacheBytes += page.bytes;
+            evict(page);
+        }
+        catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+        return page.lines;
+    }
+
+    /**
+     * Reads and decodes the stored lines of a page.
+     *
+     * @param page The page to read.
+     *
+     * @throws IOException on failure to read the spill file.
+     */
+    private List<String> read(Page page) throws IOException {
+        if (!page.spilled) {
+            return this.original.decodeLines(page.start, page.end, this.charset);
+        }
+        byte[] bytes = new byte[(int)(page.end - page.start)];
+        this.spill.seek(page.start);
+        this.spill.readFully(bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        List<String> lines = new ArrayList<String>(page.count);
+        for (int i = 0; i < page.count; i++) {
+            byte[] line = new byte[in.readInt()];
+            in.readFully(line);
+            lines.add(new String(line, StandardCharsets.UTF_8));
+        }
+        return lines;
+    }
+
+    /**
+     * Drops least recently used pages from the cache until it is below the memory ceiling.
+     * Modified pages are written to the spill file first.
+     *
+     * @param keep A page that must not be dropped or null.
+     *
+     * @throws IOException on failure to write to the spill file.
+     */
+    private void evict(Page keep) throws IOException {
+        Iterator<Page> pageIt = this.cache.keySet().iterator();
+        while (this.cacheBytes > this.maxCacheBytes && pageIt.hasNext()) {
+            Page page = pageIt.next();
+            if (page != keep) {
+                if (page.dirty) {
+                    writeSpill(page);
+                }
+                pageIt.remove();
+                page.lines = null;
+                this.cacheBytes -= page.bytes;
+                page.bytes = 0;
+            }
+        }
+    }
+
+    /**
+     * Writes the lines of a page to the end of the spill file. Lines are written in UTF-8 each
+     * preceded by its length so that any text can be stored.
+     *
+     * @param page The page to spill.
+     *
+     * @throws IOException on failure to write.
+     */
+    private void writeSpill(Page page) throws IOException {
+        if (this.spill == null) {
+            this.spillFile = File.createTempFile("PagedTextBuffer", ".spill");
+            this.spillFile.deleteOnExit();
+            this.spill = new RandomAccessFile(this.spillFile, "rw");
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream((int)Math.min(page.bytes, 16 * 1024 * 1024));
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (String line : page.lines) {
+            byte[] encoded = line.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(encoded.length);
+            out.write(encoded);
+        }
+        out.close();
+        long start = this.spill.length();
+        this.spill.seek(start);
+        this.spill.write(bytes.toByteArray());
+        page.spilled = true;
+        page.start = start;
+        page.end = this.spill.length();
+        page.dirty = false;
+    }
+
+    /**
+     * Returns the estimated memory used by a decoded line.
+     *
+     * @param line The line to estimate.
+     */
+    private static long estimate(String line) {
+        return LINE_OVERHEAD + 2L * line.length();
+    }
+
+    /**
+     * Gets a specific line from the buffer.
+     *
+     * @param line The line to get.
+     */
+    public synchronized String getLine(int line) {
+        int pageIx = locate(line);
+        return lines(this.pages.get(pageIx)).get(line - this.firstLines[pageIx]);
+    }
+
+    /**
+     * Replaces a specific line in the buffer.
+     *
+     * @param line The line to replace.
+     * @param text The new text for the line.
+     */
+    public synchronized void setLine(int line, String text) {
+        if (!this.readOnly) {
+            ++this.modCount;
+            int pageIx = locate(line);
+            Page page = this.pages.get(pageIx);
+            String old = lines(page).set(line - this.firstLines[pageIx], text);
+            changed(page, estimate(text) - estimate(old));
+        }
+    }
+
+    /**
+     * Removes the specified line.
+     *
+     * @param line The line to remove.
+     */
+    public synchronized void removeLine(int line) {
+        if (!this.readOnly) {
+            ++this.modCount;
+            int pageIx = locate(line);
+            Page page = this.pages.get(pageIx);
+            String old = lines(page).remove(line - this.firstLines[pageIx]);
+            --page.count;
+            --this.size;
+            if (page.count == 0) {
+                this.pages.remove(pageIx);
+                this.cache.remove(page);
+                this.cacheBytes -= page.bytes;
+            }
+            else {
+                changed(page, -estimate(old));
+            }
+            invalidateFrom(pageIx + 1);
+        }
+    }
+
+    /**
+     * Inserts a new line at the specified position.
+     *
+     * @param line the poistion to insert at.
+     * @param text The text to insert.
+     */
+    public synchronized void insertLine(int line, String text) {
+        if (!this.readOnly) {
+            if (line < 0 || line > this.size) {
+                throw new IndexOutOfBoundsException("Line " + line + " is not within 0 - " + this.size + "!");
+            }
+            ++this.modCount;
+            int pageIx;
+            int pageLine;
+            if (this.pages.isEmpty()) {
+                Page page = new Page(0, false, -1, -1);
+                page.lines = new ArrayList<String>();
+                this.pages.add(page);
+                this.cache.put(page, page);
+                pageIx = 0;
+                pageLine = 0;
+            }
+            else if (line == this.size) {
+                pageIx = this.pages.size() - 1;
+                pageLine = this.pages.get(pageIx).count;
+            }
+            else {
+                pageIx = locate(line);
+                pageLine = line - this.firstLines[pageIx];
+            }
+            Page page = this.pages.get(pageIx);
+            lines(page).add(pageLine, text);
+            ++page.count;
+            ++this.size;
+            invalidateFrom(pageIx + 1);
+            changed(page, estimate(text));
+            if (page.count > MAX_PAGE_LINES) {
+                split(pageIx);
+            }
+        }
+    }
+
+    /**
+     * Splits a page in two halves.
+     *
+     * @param pageIx The index of the page to split.
+     */
+    private void split(int pageIx) {
+        Page page = this.pages.get(pageIx);
+        int half = page.count / 2;
+        List<String> tail = new ArrayList<String>(page.lines.subList(half, page.count));
+        page.lines.subList(half, page.count).clear();
+        Page next = new Page(tail.size(), false, -1, -1);
+        next.lines = tail;
+        next.dirty = true;
+        for (String line : tail) {
+            next.bytes += estimate(line);
+        }
+        page.bytes -= next.bytes;
+        page.count = half;
+        this.pages.add(pageIx + 1, next);
+        this.cache.put(next, next);
+        invalidateFrom(pageIx + 1);
+    }
+
+    /**
+     * Marks a page as modified and updates the memory estimate.
+     *
+     * @param page The modified page.
+     * @param deltaBytes The change of the memory estimate of the page.
+     */
+    private void changed(Page page, long deltaBytes) {
+        page.dirty = true;
+        page.bytes += deltaBytes;
+        this.cacheBytes += deltaBytes;
+        try {
+            evict(page);
+        }
+        catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
+    }
+
+    /**
+     * Adds a line of text to the end of the buffer.
+     *
+     * @param text The text to add.
+     */
+    public synchronized void addLine(String text) {
+        insertLine(this.size, text);
+    }
+
+    /**
+     * Returns a new instance of the buffer.
+     */
+    public TextBuffer newInstance() {
+        PagedTextBuffer tb = new PagedTextBuffer(this.charset, this.maxCacheBytes);
+        tb.loadedFile = this.loadedFile;
+        return tb;
+    }
+
+    /**
+     * Returns the buffer as a String.
+     */
+    @Override
+    public synchronized String toString() {
+        StringWriter stringWriter = new StringWriter();
+        PrintWriter printWriter = new PrintWriter(stringWriter);
+        for (int i = 0; i < this.size; i++) {
+            printWriter.println(getLine(i));
+        }
+        printWriter.close();
+        return stringWriter.toString();
+    }
+}
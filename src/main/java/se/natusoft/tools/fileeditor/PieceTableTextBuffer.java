@@ -0,0 +1,578 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor;
+
+import se.natusoft.tools.fileeditor.internal.ChannelLineWriter;
+import se.natusoft.tools.fileeditor.internal.FileReplacer;
+import se.natusoft.tools.fileeditor.internal.LineIndex;
+import se.natusoft.tools.fileeditor.internal.MappedFile;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is a piece table implementation of the TextBuffer interface suitable for edit heavy work.
+ * <p>
+ * The loaded file is memory mapped and its lines are never copied. All new or changed lines
+ * are appended to an add buffer. The content of the buffer is described by a list of pieces
+ * where each piece refers to a range of lines in either the original file or the add buffer.
+ * An insert or a remove only splits, shrinks or adds piece descriptors, so its cost depends on
+ * the number of pieces and not on the number of lines.
+ * <p>
+ * Please note that only charsets where '\n' and '\r' are single byte ASCII values can be used,
+ * which is true for UTF-8 and all ISO-8859 charsets among others.
+ *
+ * @see se.natusoft.tools.fileeditor.TextFileEditor
+ */
+public class PieceTableTextBuffer implements TextBuffer {
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * Describes a range of lines in either the original file or the add buffer.
+     */
+    private static class Piece {
+        /** True if the lines are in the original file, false if they are in the add buffer. */
+        private final boolean original;
+
+        /** The first line of the piece in its source. */
+        private int start;
+
+        /** The number of lines in the piece. */
+        private int length;
+
+        private Piece(boolean original, int start, int length) {
+            this.original = original;
+            this.start = start;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Remembers the last located piece since access is usually close to the previous access.
+     * This is immutable so that concurrent readers always see a consistent cursor.
+     */
+    private static class PieceCursor {
+        /** The index of the piece. */
+        private final int piece;
+
+        /** The buffer line number of the first line in the piece. */
+        private final int firstLine;
+
+        private PieceCursor(int piece, int firstLine) {
+            this.piece = piece;
+            this.firstLine = firstLine;
+        }
+    }
+
+    //
+    // Private Members
+    //
+
+    /** Holds the path of the loaded file. */
+    private File loadedFile = null;
+
+    /** The charset of the loaded file. */
+    private Charset charset = null;
+
+    /** The memory mapped original file or null if nothing is loaded. */
+    private MappedFile original = null;
+
+    /** The start offset of each line in the original file. */
+    private LineIndex originalIndex = new LineIndex(0);
+
+    /** All added lines. This is only ever appended to. */
+    private List<String> added = new ArrayList<String>();
+
+    /** The pieces making up the buffer content. */
+    private List<Piece> pieces = new ArrayList<Piece>();
+
+    /** The number of lines in the buffer. */
+    private int size = 0;
+
+    /** The last located piece. */
+    private PieceCursor cursor = new PieceCursor(0, 0);
+
+    /** Set to true to make buffer read only. */
+    private boolean readOnly = false;
+
+    /** Incremented every time the content of the buffer changes. */
+    private long modCount = 0;
+
+    /** The modification count when the buffer was last loaded or saved. */
+    private long savedModCount = 0;
+
+    /** If true unchanged lines are saved by copying their bytes from the original file. */
+    private boolean incrementalSave = false;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new instance of PieceTableTextBuffer using the platform default charset.
+     */
+    public PieceTableTextBuffer() {
+        this(Charset.defaultCharset());
+    }
+
+    /**
+     * Creates a new instance of PieceTableTextBuffer.
+     *
+     * @param charset The charset of the files to load and save.
+     */
+    public PieceTableTextBuffer(Charset charset) {
+        if (!MappedFile.isAsciiCompatible(charset)) {
+            throw new IllegalArgumentException("Charset '" + charset + "' cannot be memory mapped!");
+        }
+        this.charset = charset;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * If true makes the buffer read only.
+     *
+     * @param readOnly Set to true to make buffer read only. Defaults to false.
+     */
+    public void setReadOnly(boolean readOnly) {
+        this.readOnly = readOnly;
+    }
+
+    /**
+     * Returns true if the buffer has been changed since it was loaded or last saved.
+     */
+    public boolean isModified() {
+        return this.modCount != this.savedModCount;
+    }
+
+    /**
+     * Returns a count that is increased every time the content of the buffer changes.
+     */
+    public long getModificationCount() {
+        return this.modCount;
+    }
+
+    /**
+     * Selects incremental save.
+     * <p>
+     * In incremental mode lines that are still in the original file are copied byte for byte,
+     * including their original line terminators, and only changed lines are encoded. Saving
+     * a few changes to a huge file then costs little more than a file copy. Without incremental
+     * mode all lines are decoded and encoded, and every line ends with the platform line separator.
+     *
+     * @param incrementalSave true to save incrementally. Defaults to false.
+     */
+    public void setIncrementalSave(boolean incrementalSave) {
+        this.incrementalSave = incrementalSave;
+    }
+
+    /**
+     * Loads a text file into the buffer.
+     *
+     * @param file The file to load.
+     */
+    public void load(File file) throws IOException {
+        MappedFile original = new MappedFile(file);
+        this.originalIndex = original.indexLines();
+        this.original = original;
+        this.loadedFile = file;
+        this.added = new ArrayList<String>();
+        this.pieces = new ArrayList<Piece>();
+        this.size = this.originalIndex.size();
+        if (this.size > 0) {
+            this.pieces.add(new Piece(true, 0, this.size));
+        }
+        this.cursor = new PieceCursor(0, 0);
+        ++this.modCount;
+        this.savedModCount = this.modCount;
+    }
+
+    /**
+     * Loads a text file into the buffer.
+     *
+     * @param path The path to the file to load.
+     */
+    public void load(String path) throws IOException {
+        load(new File(path));
+    }
+
+    /**
+     * Saves the buffer back to disk again.
+     * <p>
+     * Since the original file is still referenced by the pieces the buffer is first written to
+     * a temporary file that then replaces the original file. After that the saved file is loaded
+     * again. This does nothing if the buffer has not been modified since it was loaded or last saved.
+     */
+    public void save() throws IOException {
+        if (!isModified()) {
+            return;
+        }
+        FileReplacer replacer = new FileReplacer(this.loadedFile);
+        try {
+            writeTo(replacer.getTempFile());
+            replacer.replace();
+        }
+        finally {
+            replacer.cleanup();
+        }
+        load(this.loadedFile);
+    }
+
+    /**
+     * Saves the buffer to another file.
+     *
+     * @param file The file to save to.
+     */
+    public void saveAs(File file) throws IOException {
+        if (this.loadedFile != null && file.getAbsoluteFile().equals(this.loadedFile.getAbsoluteFile())) {
+            save();
+        }
+        else {
+            writeTo(file);
+        }
+    }
+
+    /**
+     * Saves the buffer to another file.
+     *
+     * @param path The path to the file to save to.
+     */
+    public void saveAs(String path) throws IOException {
+        saveAs(new File(path));
+    }
+
+    /**
+     * Writes the content of the buffer to the specified file by walking the pieces.
+     *
+     * @param file The file to write to.
+     *
+     * @throws IOException on failure to write.
+     */
+    private void writeTo(File file) throws IOException {
+        ChannelLineWriter writer = new ChannelLineWriter(file, this.charset);
+        try {
+            for (Piece piece : this.pieces) {
+                if (piece.original && this.incrementalSave) {
+                    int lastLine = piece.start + piece.length - 1;
+                    long end = this.originalIndex.next(lastLine);
+                    writer.copy(this.original, this.originalIndex.start(piece.start), end);
+                    if (this.original.contentEnd(this.originalIndex.start(lastLine), end) == end) {
+                        // The last line of the original file has no line terminator.
+                        writer.writeLine("");
+                    }
+                }
+                else {
+                    for (int i = 0; i < piece.length; i++) {
+                        writer.writeLine(getLine(piece, piece.start + i));
+                    }
+                }
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Clears the buffer.
+     */
+    public void clear() {
+        if (!this.readOnly) {
+            ++this.modCount;
+            this.original = null;
+            this.originalIndex = new LineIndex(0);
+            this.added = new ArrayList<String>();
+            this.pieces = new ArrayList<Piece>();
+            this.size = 0;
+            this.cursor = new PieceCursor(0, 0);
+        }
+    }
+
+    /**
+     * Returns the number of lines in the buffer.
+     */
+    public int getSize() {
+        return this.size;
+    }
+
+    /**
+     * Returns the cursor of the piece containing the specified line.
+     *
+     * @param line The line to locate.
+     */
+    private PieceCursor locate(int line) {
+        if (line < 0 || line >= this.size) {
+            throw new IndexOutOfBoundsException("Line " + line + " is not within 0 - " + (this.size - 1) + "!");
+        }
+        PieceCursor cursor = this.cursor;
+        int piece = cursor.piece;
+        int firstLine = cursor.firstLine;
+        if (piece >= this.pieces.size()) {
+            piece = 0;
+            firstLine = 0;
+        }
+        while (line < firstLine) {
+            --piece;
+            firstLine -= this.pieces.get(piece).length;
+        }
+        while (line >= firstLine + this.pieces.get(piece).length) {
+            firstLine += this.pieces.get(piece).length;
+            ++piece;
+        }
+        if (piece != cursor.piece || firstLine != cursor.firstLine) {
+            cursor = new PieceCursor(piece, firstLine);
+            this.cursor = cursor;
+        }
+        return cursor;
+    }
+
+    /**
+     * Returns a line from the source of a piece.
+     *
+     * @param piece The piece whose source to get the line from.
+     * @param sourceLine The line number in the source.
+     */
+    private String getLine(Piece piece, int sourceLine) {
+        if (piece.original) {
+            long start = this.originalIndex.start(sourceLine);
+            return this.original.decode(start, this.original.contentEnd(start, this.originalIndex.next(sourceLine)), this.charset);
+        }
+        return this.added.get(sourceLine);
+    }
+
+    /**
+     * Gets a specific line from the buffer.
+     *
+     * @param line The line to get.
+     */
+    public String getLine(int line) {
+        PieceCursor cursor = locate(line);
+        Piece piece = this.pieces.get(cursor.piece);
+        return getLine(piece, piece.start + line - cursor.firstLine);
+    }
+
+    /**
+     * Splits a piece in two.
+     *
+     * @param piece The index of the piece to split.
+     * @param length The length of the first part.
+     */
+    private void split(int piece, int length) {
+        Piece head = this.pieces.get(piece);
+        this.pieces.add(piece + 1, new Piece(head.original, head.start + length, head.length - length));
+        head.length = length;
+    }
+
+    /**
+     * Removes a range of lines.
+     *
+     * @param line The first line to remove.
+     * @param count The number of lines to remove.
+     */
+    private void removeRange(int line, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (line + count > this.size) {
+            throw new IndexOutOfBoundsException("Lines " + line + " - " + (line + count - 1) + " are not within 0 - " + (this.size - 1) + "!");
+        }
+        PieceCursor cursor = locate(line);
+        int first = cursor.piece;
+        if (line > cursor.firstLine) {
+            split(first, line - cursor.firstLine);
+            ++first;
+        }
+        int last = first;
+        int remaining = count;
+        while (remaining > 0 && remaining >= this.pieces.get(last).length) {
+            remaining -= this.pieces.get(last).length;
+            ++last;
+        }
+        if (remaining > 0) {
+            Piece tail = this.pieces.get(last);
+            tail.start += remaining;
+            tail.length -= remaining;
+        }
+        this.pieces.subList(first, last).clear();
+        this.size -= count;
+        this.cursor = new PieceCursor(first, line);
+    }
+
+    /**
+     * Inserts lines that have already been added to the end of the add buffer.
+     *
+     * @param line The line to insert at.
+     * @param count The number of lines last added to the add buffer to insert.
+     */
+    private void insertAdded(int line, int count) {
+        if (line < 0 || line > this.size) {
+            throw new IndexOutOfBoundsException("Line " + line + " is not within 0 - " + this.size + "!");
+        }
+        int addedIx = this.added.size() - count;
+        int piece = this.pieces.size();
+        if (line < this.size) {
+            PieceCursor cursor = locate(line);
+            piece = cursor.piece;
+            if (line > cursor.firstLine) {
+                split(piece, line - cursor.firstLine);
+                ++piece;
+            }
+        }
+
+        Piece prev = piece > 0 ? this.pieces.get(piece - 1) : null;
+        if (prev != null && !prev.original && prev.start + prev.length == addedIx) {
+            prev.length += count;
+            this.cursor = new PieceCursor(piece - 1, line + count - prev.length);
+        }
+        else {
+            this.pieces.add(piece, new Piece(false, addedIx, count));
+            this.cursor = new PieceCursor(piece, line);
+        }
+        this.size += count;
+    }
+
+    /**
+     * Replaces a specific line in the buffer.
+     *
+     * @param line The line to replace.
+     * @param text The new text for the line.
+     */
+    public void setLine(int line, String text) {
+        if (!this.readOnly) {
+            ++this.modCount;
+            removeRange(line, 1);
+            this.added.add(text);
+            insertAdded(line, 1);
+        }
+    }
+
+    /**
+     * Removes the specified line.
+     *
+     * @param line The line to remove.
+     */
+    public void removeLine(int line) {
+        if (!this.readOnly) {
+            ++this.modCount;
+            removeRange(line, 1);
+        }
+    }
+
+    /**
+     * Inserts a new line at the specified position.
+     *
+     * @param line the poistion to insert at.
+     * @param text The text to insert.
+     */
+    public void insertLine(int line, String text) {
+        if (!this.readOnly) {
+            ++this.modCount;
+            this.added.add(text);
+            insertAdded(line, 1);
+        }
+    }
+
+    /**
+     * Removes a range of lines.
+     *
+     * @param line The first line to remove.
+     * @param count The number of lines to remove.
+     */
+    public void removeLines(int line, int count) {
+        if (!this.readOnly) {
+            ++this.modCount;
+            removeRange(line, count);
+        }
+    }
+
+    /**
+     * Inserts a number of lines at the specified position. All lines end up in a single piece.
+     *
+     * @param line The position to insert at.
+     * @param lines The lines to insert.
+     */
+    public void insertLines(int line, List<String> lines) {
+        if (!this.readOnly && !lines.isEmpty()) {
+            ++this.modCount;
+            this.added.addAll(lines);
+            insertAdded(line, lines.size());
+        }
+    }
+
+    /**
+     * Adds a line of text to the end of the buffer.
+     *
+     * @param text The text to add.
+     */
+    public void addLine(String text) {
+        insertLine(this.size, text);
+    }
+
+    /**
+     * Returns a new instance of the buffer.
+     */
+    public TextBuffer newInstance() {
+        PieceTableTextBuffer tb = new PieceTableTextBuffer(this.charset);
+        tb.loadedFile = this.loadedFile;
+        tb.incrementalSave = this.incrementalSave;
+        return tb;
+    }
+
+    /**
+     * Returns the buffer as a String.
+     */
+    @Override
+    public String toString() {
+        StringWriter stringWriter = new StringWriter();
+        PrintWriter printWriter = new PrintWriter(stringWriter);
+        for (Piece piece : this.pieces) {
+            for (int i = 0; i < piece.length; i++) {
+                printWriter.println(getLine(piece, piece.start + i));
+            }
+        }
+        printWriter.close();
+        return stringWriter.toString();
+    }
+}
@@ -50,10 +50,10 @@ public class Position {
     //
     
     /** The current line. */
-    private TextPos line = TextPos.FIRST;
+    private int line = 1;
     
     /** The current column. */
-    private TextPos column = TextPos.FIRST;
+    private int column = 1;
         
     //
     // Constructors
@@ -72,8 +72,8 @@ public class Position {
      * @param column The column this position points to.
      */
     public Position(int column, int line) {
-        this.line = new TextPos(line);
-        this.column = new TextPos(column);
+        setLine(line);
+        setColumn(column);
     }
     
     /**
@@ -83,8 +83,8 @@ public class Position {
      * @param column The column this position points to.
      */
     /*package*/ Position(TextPos column, TextPos line) {
-        this.line = line;
-        this.column = column;
+        this.line = line.value();
+        this.column = column.value();
     }
 
     //
@@ -98,8 +98,8 @@ public class Position {
      * @param maxColumns
      */
     public void adjustLimits(int maxLines, int maxColumns) {
-        line.adjustLimits(maxLines);
-        column.adjustLimits(maxColumns);
+        this.line = TextPos.withinLimit(this.line, maxLines);
+        this.column = TextPos.withinLimit(this.column, maxColumns);
     }
 
     /**
@@ -108,7 +108,7 @@ public class Position {
      * @param line The line to set.
      */
     public void setLine(int line) {
-        this.line = new TextPos(line);
+        this.line = line < 1 ? 1 : line;
     }
     
     /**
@@ -117,7 +117,7 @@ public class Position {
      * @param line The line to set.
      */
     /*package*/ void setLine(TextPos line) {
-        this.line = line;
+        this.line = line.value();
     }
 
     /**
@@ -137,14 +137,14 @@ public class Position {
      * Returns the number of current line.
      */
     public int getLine() {
-        return this.line.value();
+        return this.line;
     }
 
     /**
      * Returns the number of the current line.
      */
     /*package*/ TextPos getLineNumber() {
-        return this.line;
+        return TextPos.of(this.line);
     }
     
     /**
@@ -153,7 +153,7 @@ public class Position {
      * @param column The colum to set.
      */ 
     public void setColumn(int column) {
-        this.column = new TextPos(column);
+        this.column = column < 1 ? 1 : column;
     }
     
     /**
@@ -162,7 +162,7 @@ public class Position {
      * @param column The colum to set.
      */
     /*package*/ void setColumn(TextPos column) {
-        this.column = column;
+        this.column = column.value();
     }
 
     /**
@@ -182,42 +182,42 @@ public class Position {
      * Returns the current column number.
      */
     public int getColumn() {
-        return this.column.value();
+        return this.column;
     }
 
     /**
      * Returns the current column number.
      */
     /*package*/ TextPos getColumnNumber() {
-        return this.column;
+        return TextPos.of(this.column);
     }
 
     /**
      * Increments the line number.
      */
     public void incrementLine() {
-        this.line = this.line.increment();
+        setLine(this.line + 1);
     }
 
     /**
      * Decrements the line number.
      */
     public void decrementLine() {
-        this.line = this.line.decrement();
+        setLine(this.line - 1);
     }
 
     /**
      * Increments the column.
      */
     public void incrementColumn() {
-        this.column = this.column.increment();
+        setColumn(this.column + 1);
     }
 
     /**
      * Decrements the column.
      */
     public void decrementColumnm() {
-        this.column = this.column.decrement();
+        setColumn(this.column - 1);
     }
 
     /**
@@ -0,0 +1,386 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor;
+
+import se.natusoft.tools.fileeditor.internal.ChannelLineWriter;
+import se.natusoft.tools.fileeditor.internal.FileReplacer;
+import se.natusoft.tools.fileeditor.internal.PatternCache;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * This is a one pass streaming editor for pure forward transformations, much like sed.
+ * <p>
+ * Instead of loading a whole file into a buffer like TextFileEditor does, a list of line rules
+ * is set up and then each line is read, edited by the rules, and written before the next line is
+ * read. Memory use is thereby constant no matter how large the file is. The rules are applied in
+ * the order they were added, and each rule sees the result of the previous rules. Lines inserted
+ * by a rule are written as is and are not edited by any rules.
+ * <p>
+ * Example:
+ * <pre>
+ *     new StreamEditor()
+ *         .replaceAll("some", "every")
+ *         .deleteLinesMatching("\\s*#.*")
+ *         .insertAfter("package .*;", "")
+ *         .edit(file, charset);
+ * </pre>
+ * Lines are split exactly like TextFileEditor splits them when loading and are written with the
+ * platform line separator just like TextFileEditor saves them.
+ */
+public class StreamEditor {
+
+    //
+    // Constants
+    //
+
+    /** The size of the read buffer. */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * A rule applied to each line.
+     */
+    private static interface Rule {
+
+        /**
+         * Applies the rule to a line.
+         *
+         * @param line The line to edit.
+         * @param edit Receives lines to insert and whether the line is deleted.
+         */
+        public void apply(Line line, LineEdit edit);
+    }
+
+    /**
+     * The lines to insert around the current line and whether it is deleted.
+     */
+    private static class LineEdit {
+        /** Lines to write before the current line. */
+        private List<String> before = new ArrayList<String>();
+
+        /** Lines to write after the current line. */
+        private List<String> after = new ArrayList<String>();
+
+        /** True if the current line should not be written. */
+        private boolean deleted = false;
+
+        /**
+         * Prepares for the next line.
+         */
+        private void reset() {
+            this.before.clear();
+            this.after.clear();
+            this.deleted = false;
+        }
+    }
+
+    //
+    // Private Members
+    //
+
+    /** The rules in the order to apply them. */
+    private List<Rule> rules = new ArrayList<Rule>();
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new StreamEditor without any rules.
+     */
+    public StreamEditor() {}
+
+    //
+    // Methods
+    //
+
+    /**
+     * Adds a rule that replaces all occurences of a text in each line.
+     *
+     * @param text The text to replace.
+     * @param replaceWithText The text to replace it with.
+     *
+     * @return itself.
+     */
+    public StreamEditor replaceAll(final String text, final String replaceWithText) {
+        this.rules.add(new Rule() {
+            public void apply(Line line, LineEdit edit) {
+                line.replaceAll(text, replaceWithText);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Adds a rule that replaces the text between "before" and "after" with "newBetween" in each line.
+     *
+     * @param before The text that comes before what should be replaced.
+     * @param after The text that comes after what should be replaced.
+     * @param newBetween The new inbetween text.
+     *
+     * @return itself.
+     */
+    public StreamEditor replaceBetween(final String before, final String after, final String newBetween) {
+        this.rules.add(new Rule() {
+            public void apply(Line line, LineEdit edit) {
+                line.replaceBetween(before, after, newBetween);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Adds a rule that deletes all lines matching a regular expression. The rules following this
+     * rule are not applied to deleted lines.
+     *
+     * @param regexp The regular expression the whole line must match.
+     *
+     * @return itself.
+     */
+    public StreamEditor deleteLinesMatching(String regexp) {
+        return deleteLinesMatching(PatternCache.get(regexp));
+    }
+
+    /**
+     * Adds a rule that deletes all lines matching a pattern. The rules following this rule are not
+     * applied to deleted lines.
+     *
+     * @param pattern The pattern the whole line must match.
+     *
+     * @return itself.
+     */
+    public StreamEditor deleteLinesMatching(final Pattern pattern) {
+        this.rules.add(new Rule() {
+            public void apply(Line line, LineEdit edit) {
+                edit.deleted = line.matches(pattern);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Adds a rule that inserts a line before each line matching a regular expression.
+     *
+     * @param regexp The regular expression the whole line must match.
+     * @param text The line to insert.
+     *
+     * @return itself.
+     */
+    public StreamEditor insertBefore(String regexp, String text) {
+        return insertBefore(PatternCache.get(regexp), text);
+    }
+
+    /**
+     * Adds a rule that inserts a line before each line matching a pattern.
+     *
+     * @param pattern The pattern the whole line must match.
+     * @param text The line to insert.
+     *
+     * @return itself.
+     */
+    public StreamEditor insertBefore(final Pattern pattern, final String text) {
+        this.rules.add(new Rule() {
+            public void apply(Line line, LineEdit edit) {
+                if (line.matches(pattern)) {
+                    edit.before.add(text);
+                }
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Adds a rule that inserts a line after each line matching a regular expression.
+     *
+     * @param regexp The regular expression the whole line must match.
+     * @param text The line to insert.
+     *
+     * @return itself.
+     */
+    public StreamEditor insertAfter(String regexp, String text) {
+        return insertAfter(PatternCache.get(regexp), text);
+    }
+
+    /**
+     * Adds a rule that inserts a line after each line matching a pattern.
+     *
+     * @param pattern The pattern the whole line must match.
+     * @param text The line to insert.
+     *
+     * @return itself.
+     */
+    public StreamEditor insertAfter(final Pattern pattern, final String text) {
+        this.rules.add(new Rule() {
+            public void apply(Line line, LineEdit edit) {
+                if (line.matches(pattern)) {
+                    edit.after.add(text);
+                }
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Edits a file in place. The result is written to a temporary file that then replaces the file.
+     *
+     * @param file The file to edit.
+     * @param charset The charset of the file.
+     *
+     * @return The number of lines written.
+     *
+     * @throws IOException on failure to read or write.
+     */
+    public long edit(File file, Charset charset) throws IOException {
+        FileReplacer replacer = new FileReplacer(file);
+        try {
+            long lines = edit(file, replacer.getTempFile(), charset);
+            replacer.replace();
+            return lines;
+        }
+        finally {
+            replacer.cleanup();
+        }
+    }
+
+    /**
+     * Edits a file and writes the result to another file.
+     *
+     * @param from The file to read.
+     * @param to The file to write.
+     * @param charset The charset of both files.
+     *
+     * @return The number of lines written.
+     *
+     * @throws IOException on failure to read or write.
+     */
+    public long edit(File from, File to, Charset charset) throws IOException {
+        FileInputStream in = new FileInputStream(from);
+        try {
+            return edit(in.getChannel(), new FileOutputStream(to).getChannel(), charset);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Edits a stream. The output stream is closed when done but not the input stream.
+     *
+     * @param in The stream to read.
+     * @param out The stream to write.
+     * @param charset The charset of both streams.
+     *
+     * @return The number of lines written.
+     *
+     * @throws IOException on failure to read or write.
+     */
+    public long edit(InputStream in, OutputStream out, Charset charset) throws IOException {
+        return edit(Channels.newChannel(in), Channels.newChannel(out), charset);
+    }
+
+    /**
+     * Edits a channel. The output channel is closed when done but not the input channel.
+     *
+     * @param in The channel to read.
+     * @param out The channel to write.
+     * @param charset The charset of both channels.
+     *
+     * @return The number of lines written.
+     *
+     * @throws IOException on failure to read or write.
+     */
+    public long edit(ReadableByteChannel in, WritableByteChannel out, Charset charset) throws IOException {
+        BufferedReader reader = new BufferedReader(Channels.newReader(in,
+                charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE), -1),
+                READ_BUFFER_SIZE);
+        ChannelLineWriter writer = new ChannelLineWriter(out, charset);
+        long written = 0;
+        try {
+            Line line = new Line();
+            LineEdit edit = new LineEdit();
+            String text = reader.readLine();
+            while (text != null) {
+                line.replace(text);
+                edit.reset();
+                for (int i = 0; i < this.rules.size() && !edit.deleted; i++) {
+                    this.rules.get(i).apply(line, edit);
+                }
+                written += write(writer, edit.before);
+                if (!edit.deleted) {
+                    writer.writeLine(line.toString());
+                    ++written;
+                }
+                written += write(writer, edit.after);
+                text = reader.readLine();
+            }
+        }
+        finally {
+            writer.close();
+        }
+        return written;
+    }
+
+    /**
+     * Writes inserted lines.
+     *
+     * @param writer The writer to write to.
+     * @param lines The lines to write.
+     *
+     * @return The number of lines written.
+     *
+     * @throws IOException on failure to write.
+     */
+    private static int write(ChannelLineWriter writer, List<String> lines) throws IOException {
+        for (String line : lines) {
+            writer.writeLine(line);
+        }
+        return lines.size();
+    }
+}
@@ -38,6 +38,7 @@
 package se.natusoft.tools.fileeditor;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * This is an interface representing a buffer of text.
@@ -86,6 +87,20 @@ public interface TextBuffer {
      * @param line The line to get.
      */
     public String getLine(int line);
+
+    /**
+     * Returns a read only view of a specific line in the buffer.
+     * <p>
+     * This is used by the editor when it only needs to look at a line, like when searching.
+     * Implementations should return the text without copying it if possible. The default
+     * implementation just returns getLine(line) which for buffers holding Strings already is
+     * a zero copy operation.
+     *
+     * @param line The line to get.
+     */
+    public default CharSequence getLineChars(int line) {
+        return getLine(line);
+    }
     
     /**
      * Replaces a specific line in the buffer.
@@ -116,6 +131,36 @@ public interface TextBuffer {
      * @param text The text to add.
      */
     public void addLine(String text);
+
+    /**
+     * Removes a range of lines.
+     * <p>
+     * The default implementation removes one line at a time. Implementations should override this
+     * if they can remove a range of lines in one operation.
+     *
+     * @param line The first line to remove.
+     * @param count The number of lines to remove.
+     */
+    public default void removeLines(int line, int count) {
+        for (int i = 0; i < count; i++) {
+            removeLine(line);
+        }
+    }
+
+    /**
+     * Inserts a number of lines at the specified position.
+     * <p>
+     * The default implementation inserts one line at a time. Implementations should override this
+     * if they can insert a range of lines in one operation.
+     *
+     * @param line The position to insert at.
+     * @param lines The lines to insert.
+     */
+    public default void insertLines(int line, List<String> lines) {
+        for (String text : lines) {
+            insertLine(line++, text);
+        }
+    }
     
     /**
      * Returns a new instance of the buffer.
@@ -134,4 +179,24 @@ public interface TextBuffer {
      * @param readOnly Set to true to make buffer read only. Defaults to false.
      */
     public void setReadOnly(boolean readOnly);
+
+    /**
+     * Returns true if the buffer has been changed since it was loaded or last saved.
+     * <p>
+     * The default implementation does not keep track of changes and always returns true.
+     */
+    public default boolean isModified() {
+        return true;
+    }
+
+    /**
+     * Returns a count that is increased every time the content of the buffer changes, including
+     * when a file is loaded. This can be used to tell if information derived from the content is
+     * still valid.
+     * <p>
+     * The default implementation does not keep track of changes and returns -1 which means unknown.
+     */
+    public default long getModificationCount() {
+        return -1;
+    }
 }
@@ -37,7 +37,12 @@
  */
 package se.natusoft.tools.fileeditor;
 
+import se.natusoft.tools.fileeditor.internal.ChannelLineWriter;
+import se.natusoft.tools.fileeditor.internal.MappedFile;
+import se.natusoft.tools.fileeditor.internal.ParallelLineLoader;
+
 import java.io.*;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -56,6 +61,13 @@ import java.util.List;
  */
 public class TextFileBuffer implements TextBuffer {
     
+    //
+    // Constants
+    //
+
+    /** Files of at least this size are loaded in parallel if the charset allows it. */
+    private static final long PARALLEL_LOAD_SIZE = 4 * ParallelLineLoader.CHUNK_SIZE;
+
     //
     // Private Members
     //
@@ -69,15 +81,36 @@ public class TextFileBuffer implements TextBuffer {
     /** Set to true to make buffer read only. */
     private boolean readOnly = false;
 
+    /** Incremented every time the content of the buffer changes. */
+    private long modCount = 0;
+
+    /** The modification count when the buffer was last loaded or saved. */
+    private long savedModCount = 0;
+
+    /** The charset of the file. */
+    private Charset charset;
+
+    /** If true the buffer is saved through a FileChannel, otherwise through a PrintWriter. */
+    private boolean channelSave = true;
+
     //
     // Constructors
     //
     
     /**
-     * Creates a new instance of TextFileBuffer.
+     * Creates a new instance of TextFileBuffer using the platform default charset.
      */
     public TextFileBuffer() {
-        
+        this(Charset.defaultCharset());
+    }
+
+    /**
+     * Creates a new instance of TextFileBuffer.
+     *
+     * @param charset The charset of the files loaded and saved.
+     */
+    public TextFileBuffer(Charset charset) {
+        this.charset = charset;
     }
     
     //
@@ -93,25 +126,64 @@ public class TextFileBuffer implements TextBuffer {
         this.readOnly = readOnly;
     }
 
+    /**
+     * Returns true if the buffer has been changed since it was loaded or last saved.
+     */
+    public boolean isModified() {
+        return this.modCount != this.savedModCount;
+    }
+
+    /**
+     * Returns a count that is increased every time the content of the buffer changes.
+     */
+    public long getModificationCount() {
+        return this.modCount;
+    }
+
+    /**
+     * Selects how the buffer is saved.
+     * <p>
+     * By default lines are encoded in large batches and written through a FileChannel. Setting this
+     * to false saves through a PrintWriter instead. Both produce the same file.
+     *
+     * @param channelSave true to save through a FileChannel, false to save through a PrintWriter.
+     */
+    public void setChannelSave(boolean channelSave) {
+        this.channelSave = channelSave;
+    }
+
     /**
      * Loads a text file into the buffer.
+     * <p>
+     * Large files are decoded in parallel chunks on all cores if the charset encodes line
+     * terminators as single ASCII bytes, which is true for UTF-8 and the ISO-8859 charsets
+     * among others. The result is the same either way.
      *
      * @param file The file to load.
      */
     public void load(File file) throws IOException {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
-        try {
+        if (file.length() >= PARALLEL_LOAD_SIZE && MappedFile.isAsciiCompatible(this.charset)
+                && Runtime.getRuntime().availableProcessors() > 1) {
+            this.text = ParallelLineLoader.load(file, this.charset);
             this.loadedFile = file;
-            this.text = new ArrayList();
-            String line = reader.readLine();
-            while (line != null) {
-                this.text.add(line);
-                line = reader.readLine();
+        }
+        else {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), this.charset));
+            try {
+                this.loadedFile = file;
+                this.text = new ArrayList();
+                String line = reader.readLine();
+                while (line != null) {
+                    this.text.add(line);
+                    line = reader.readLine();
+                }
+            }
+            finally {
+                reader.close();
             }
         }
-        finally {
-            reader.close();
-        }        
+        ++this.modCount;
+        this.savedModCount = this.modCount;
     }
     
     /**
@@ -125,9 +197,14 @@ public class TextFileBuffer implements TextBuffer {
     
     /**
      * Saves the buffer back to disk again.
+     * <p>
+     * This does nothing if the buffer has not been modified since it was loaded or last saved.
      */
     public void save() throws IOException {
-        saveAs(this.loadedFile);        
+        if (isModified()) {
+            saveAs(this.loadedFile);
+            this.savedModCount = this.modCount;
+        }
     }
     
     /**
@@ -138,9 +215,22 @@ public class TextFileBuffer implements TextBuffer {
     public void saveAs(File file) throws IOException {
         //System.out.println("##### saveAs(File): this.text=" + this.text);
         //System.out.println("##### saveAs(File): file=" + file);
-        PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file)));
+        if (this.channelSave) {
+            ChannelLineWriter writer = new ChannelLineWriter(file, this.charset);
+            try {
+                for (String line : this.text) {
+                    writer.writeLine(line);
+                }
+            }
+            finally {
+                writer.close();
+            }
+        }
+        else {
+            PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), this.charset));
 
-        writeBufferAndClose(writer);
+            writeBufferAndClose(writer);
+        }
     }
     
     /**
@@ -174,6 +264,7 @@ public class TextFileBuffer implements TextBuffer {
      */
     public void clear() {
         if (!this.readOnly) {
+            ++this.modCount;
             this.text = new ArrayList();
         }
     }
@@ -202,6 +293,7 @@ public class TextFileBuffer implements TextBuffer {
      */
     public void setLine(int line, String text) {
         if (!this.readOnly) {
+            ++this.modCount;
             this.text.set(line, text);
         }
     }
@@ -213,6 +305,7 @@ public class TextFileBuffer implements TextBuffer {
      */
     public void removeLine(int line) {
         if (!this.readOnly) {
+            ++this.modCount;
             this.text.remove(line);
         }
     }
@@ -225,10 +318,37 @@ public class TextFileBuffer implements TextBuffer {
      */
     public void insertLine(int line, String text) {
         if (!this.readOnly) {
+            ++this.modCount;
             this.text.add(line, text);
         }
     }
 
+    /**
+     * Removes a range of lines.
+     *
+     * @param line The first line to remove.
+     * @param count The number of lines to remove.
+     */
+    public void removeLines(int line, int count) {
+        if (!this.readOnly) {
+            ++this.modCount;
+            this.text.subList(line, line + count).clear();
+        }
+    }
+
+    /**
+     * Inserts a number of lines at the specified position.
+     *
+     * @param line The position to insert at.
+     * @param lines The lines to insert.
+     */
+    public void insertLines(int line, List<String> lines) {
+        if (!this.readOnly) {
+            ++this.modCount;
+            this.text.addAll(line, lines);
+        }
+    }
+
     /**
      * Appends text to the specified line.
      * 
@@ -237,6 +357,7 @@ public class TextFileBuffer implements TextBuffer {
      */
     public void appendToLine(int line, String text) {
         if (!this.readOnly) {
+            ++this.modCount;
             this.text.set(line, this.text.get(line) + text);
         }
     }
@@ -248,6 +369,7 @@ public class TextFileBuffer implements TextBuffer {
      */
     public void addLine(String text) {
         if (!this.readOnly) {
+            ++this.modCount;
             this.text.add(text);
         }
     }
@@ -256,8 +378,9 @@ public class TextFileBuffer implements TextBuffer {
      * Returns a new instance of the buffer.
      */
     public TextBuffer newInstance() {
-        TextFileBuffer tb = new TextFileBuffer();
+        TextFileBuffer tb = new TextFileBuffer(this.charset);
         tb.loadedFile = this.loadedFile;
+        tb.channelSave = this.channelSave;
         return tb;
     }
 
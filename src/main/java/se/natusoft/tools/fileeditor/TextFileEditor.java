@@ -37,13 +37,36 @@
  */
 package se.natusoft.tools.fileeditor;
 
+import se.natusoft.tools.fileeditor.internal.AhoCorasick;
+import se.natusoft.tools.fileeditor.internal.BracketIndex;
 import se.natusoft.tools.fileeditor.internal.BufferWrapper;
+import se.natusoft.tools.fileeditor.internal.CharCursor;
+import se.natusoft.tools.fileeditor.internal.ContentHash;
+import se.natusoft.tools.fileeditor.internal.LineFinder;
+import se.natusoft.tools.fileeditor.internal.LineReplacer;
+import se.natusoft.tools.fileeditor.internal.LineSearch;
+import se.natusoft.tools.fileeditor.internal.MultiReplacer;
+import se.natusoft.tools.fileeditor.internal.OccurenceSpliterator;
+import se.natusoft.tools.fileeditor.internal.ParallelLineReplace;
+import se.natusoft.tools.fileeditor.internal.ParallelLineSearch;
+import se.natusoft.tools.fileeditor.internal.PatternCache;
+import se.natusoft.tools.fileeditor.internal.RegexpReplacer;
 import se.natusoft.tools.fileeditor.internal.TextPos;
+import se.natusoft.tools.fileeditor.internal.TrigramIndex;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This is a text file editor that as the name suggests, edits text files.
@@ -65,7 +88,7 @@ public class TextFileEditor {
     //
     
     /** The current position. */
-    private Position position = new Position(TextPos.FIRST, TextPos.FIRST);
+    private Position position = new Position();
     
     /** The current selection when non null. */
     private Selection selection = null;
@@ -75,6 +98,12 @@ public class TextFileEditor {
 
     /** Enables/disables loading and saving of editor content. */
     private boolean allowLoadSave = true;
+
+    /** The bracket pairs to keep an index of for moveToMatching(...) or null for no index. */
+    private String bracketPairs = null;
+
+    /** True if searches should be narrowed by a trigram index of the buffer. */
+    private boolean trigramIndexEnabled = false;
         
     //
     // Constructors
@@ -166,6 +195,37 @@ public class TextFileEditor {
         this.buffer.saveAs(path);
     }
 
+    /**
+     * Returns true if the buffer has been modified since it was loaded or last saved. If it has
+     * not, save() will not write anything.
+     */
+    public boolean isModified() {
+        return this.buffer.isModified();
+    }
+
+    /**
+     * Returns a 64 bit hash of the text in the buffer. The hash only depends on the lines of text,
+     * not on the charset or the line terminators of the file. It is remembered until the buffer
+     * changes, so calling this repeatedly is cheap.
+     */
+    public long getContentHash() {
+        return this.buffer.getContentHash();
+    }
+
+    /**
+     * Returns the same hash as getContentHash() would for a buffer holding the specified file,
+     * without loading the file into a buffer. Compare with getContentHash() to tell if the
+     * buffer differs from a file.
+     *
+     * @param file The file to hash.
+     * @param charset The charset of the file.
+     *
+     * @throws IOException on failure to read the file.
+     */
+    public static long getContentHash(File file, Charset charset) throws IOException {
+        return ContentHash.of(file, charset);
+    }
+
     //
     // Support methods
     //
@@ -185,18 +245,10 @@ public class TextFileEditor {
                 this.position.setLine(this.buffer.getLastLine());
                 adjusted = true;
             }
-            else if (this.position.getLineNumber().lessThan(TextPos.FIRST)) {
-                this.position.setLine(TextPos.FIRST);
-                adjusted = true;
-            }
 
-            String line = getLine(this.position.getLine());
-            if (this.position.getColumn() > line.length()) {
-                this.position.setColumn(line.length());
-                adjusted = true;
-            }
-            else if (this.position.getColumnNumber().lessThan(TextPos.FIRST)) {
-                this.position.setColumn(TextPos.FIRST);
+            int length = this.buffer.getLineLength(this.position.getLine());
+            if (this.position.getColumn() > length) {
+                this.position.setColumn(length);
                 adjusted = true;
             }
         }
@@ -213,7 +265,7 @@ public class TextFileEditor {
      * @param line The line to get.
      */
     public String getLine(int line) {
-        return this.buffer.getLine(line).toString();
+        return this.buffer.getLineChars(line).toString();
     }
 
     /**
@@ -283,7 +335,7 @@ public class TextFileEditor {
             --i;
         }
         ++i;
-        this.position.setColumn(new TextPos(TextPos.BASE_ZERO, i));
+        this.position.setColumn(i + 1);
         StringBuilder word = new StringBuilder();
         while (i < line.length() && line.charAt(i) != ' ') {
             word.append(line.charAt(i));
@@ -356,7 +408,7 @@ public class TextFileEditor {
      * @param size The number of columns to move the position right.
      */
     public boolean moveRight(int size) {
-        this.position.setColumn(this.position.getColumn() + size, this.buffer.getLine(this.position.getLine()).length());
+        this.position.setColumn(this.position.getColumn() + size, this.buffer.getLineLength(this.position.getLine()));
         return !adjustPosition();
     }
 
@@ -380,15 +432,14 @@ public class TextFileEditor {
      * Returns false on failure to do so.
      */
     public boolean moveToNextChar() {
-        TextPos column = this.position.getColumnNumber();
-        TextPos line = this.position.getLineNumber();
-        column = column.increment();
+        int column = this.position.getColumn() + 1;
+        int line = this.position.getLine();
         if (!this.buffer.columnWithinLimit(line, column)) {
-            column = TextPos.FIRST;
-            line = line.increment();
+            column = 1;
+            ++line;
         }
         if (!this.buffer.lineWithinLimit(line)) {
-            line = this.buffer.getLastLineNumber();
+            line = this.buffer.getLastLine();
         }
         this.position.setColumn(column);
         this.position.setLine(line);
@@ -403,15 +454,14 @@ public class TextFileEditor {
      * Returns false on failure to do so.
      */
     public boolean moveToPrevChar() {
-        TextPos column = this.position.getColumnNumber();
-        TextPos line = this.position.getLineNumber();
-        column = column.decrement();
+        int column = Math.max(this.position.getColumn() - 1, 1);
+        int line = this.position.getLine();
         if (!this.buffer.columnWithinLimit(line, column)) {
-            line = line.decrement();
+            line = Math.max(line - 1, 1);
             if (!this.buffer.lineWithinLimit(line)) {
-                line = TextPos.FIRST;
+                line = 1;
             }
-            column = this.buffer.getLastLineNumber();
+            column = this.buffer.getLastLine();
         }
         this.position.setColumn(column);
         this.position.setLine(line);
@@ -422,7 +472,7 @@ public class TextFileEditor {
      * Returns the character at the current position.
      */
     public char getChar() {
-        return this.buffer.getLine(this.position.getLineNumber()).charAt(this.position.getColumn());
+        return this.buffer.getLineChars(this.position.getLine()).charAt(this.position.getColumnNumber().baseZeroValue());
     }
 
     /**
@@ -463,24 +513,20 @@ public class TextFileEditor {
      */
     public boolean moveWordsRight(int words) {
         boolean success = true;
-        Line line = this.buffer.getLine(this.position.getLine());
-        int column = this.position.getColumn();
+        CharCursor cursor = new CharCursor(this.buffer, this.position.getLine(), this.position.getColumn());
 
         for (int i = 0; i < words; i++) {
-            while (success && line.charAt(column) == ' ') {
-                ++column;
-                success = line.columnWithinLimit(column);
+            while (success && cursor.current() == ' ') {
+                success = cursor.right();
             }
-            while (success && line.charAt(column) != ' ') {
-                ++column;
-                success = line.columnWithinLimit(column);
+            while (success && cursor.current() != ' ') {
+                success = cursor.right();
             }
-            while (success && line.charAt(column) == ' ') {
-                ++column;
-                success = line.columnWithinLimit(column);
+            while (success && cursor.current() == ' ') {
+                success = cursor.right();
             }
         }
-        this.position.setColumn(column);
+        this.position.setColumn(cursor.getColumn());
 
         adjustPosition();
 
@@ -498,21 +544,17 @@ public class TextFileEditor {
      */
     public boolean moveWordsLeft(int words) {
         boolean success = true;
-        Line line = this.buffer.getLine(this.position.getLine());
-        int column = this.position.getColumn();
+        CharCursor cursor = new CharCursor(this.buffer, this.position.getLine(), this.position.getColumn());
 
         for (int i = 0; i < words; i++) {
-            while (success && line.charAt(column) == ' ') {
-                --column;
-                success = line.columnWithinLimit(column);
+            while (success && cursor.current() == ' ') {
+                success = cursor.left();
             }
-            while (success && line.charAt(column) != ' ') {
-                --column;
-                success = line.columnWithinLimit(column);
+            while (success && cursor.current() != ' ') {
+                success = cursor.left();
             }
         }
-        ++column;
-        this.position.setColumn(column);
+        this.position.setColumn(cursor.getColumn() + 1);
 
         adjustPosition();
 
@@ -523,8 +565,7 @@ public class TextFileEditor {
      * Moves the current position to the end of the line.
      */
     public void moveToEndOfLine() {
-        Line line = this.buffer.getLine(this.position.getLine());
-        this.position.setColumn(line.lastColumn());
+        this.position.setColumn(this.buffer.getLineLength(this.position.getLine()));
     }
 
     /**
@@ -562,7 +603,7 @@ public class TextFileEditor {
      * Returns true if the current position is on the first line.
      */
     public boolean isOnFirstLine() {
-        return this.position.getLineNumber().equals(TextPos.FIRST);
+        return this.position.getLine() == 1;
     }
 
     /**
@@ -576,14 +617,14 @@ public class TextFileEditor {
      * Returns true if the current position is on the first column in the line.
      */
     public boolean isOnFirstColumn() {
-        return this.position.getColumnNumber().equals(TextPos.FIRST);
+        return this.position.getColumn() == 1;
     }
 
     /**
      * Returns true if the current position is on the last column of the line.
      */
     public boolean isOnLastColumn() {
-        return this.position.getColumnNumber().equals(this.buffer.getLine(this.position.getLine()).lastColumnNumber());
+        return this.position.getColumn() == Math.max(this.buffer.getLineLength(this.position.getLine()), 1);
     }
 
     /**
@@ -613,7 +654,7 @@ public class TextFileEditor {
      * @param endAt A regexp to cause premature end of search.
      */
     public boolean find(String text, String endAt) {
-        return find(text, TextPos.FIRST, endAt);
+        return find(PatternCache.get(text), 1, PatternCache.getOrNull(endAt));
     }
 
     /**
@@ -623,26 +664,59 @@ public class TextFileEditor {
      * @param endAt A regexp to cause premature end of search.
      */
     public boolean findFromCurrent(String text, String endAt) {
-        return find(text, this.position.getLineNumber(), endAt);
+        return find(PatternCache.get(text), this.position.getLine(), PatternCache.getOrNull(endAt));
     }
 
     /**
-     * Finds the specified text and moves the current position. This always start searching from the
+     * Finds the specified pattern and moves the current position. This always start searching from the
      * beginning of the buffer!
      *
-     * @param text The text to find. This can be a regular expression.
-     * @param endAt A regexp to cause premature end of search.
+     * @param pattern The pattern to find.
+     */
+    public boolean find(Pattern pattern) {
+        return find(pattern, 1, null);
+    }
+
+    /**
+     * Finds the specified pattern and moves the current position. This always start searching from the
+     * beginning of the buffer!
+     *
+     * @param pattern The pattern to find.
+     * @param endAt A pattern to cause premature end of search or null.
+     */
+    public boolean find(Pattern pattern, Pattern endAt) {
+        return find(pattern, 1, endAt);
+    }
+
+    /**
+     * Finds the specified pattern starting search at current line and moves the current position.
+     *
+     * @param pattern The pattern to find.
+     * @param endAt A pattern to cause premature end of search or null.
+     */
+    public boolean findFromCurrent(Pattern pattern, Pattern endAt) {
+        return find(pattern, this.position.getLine(), endAt);
+    }
+
+    /**
+     * Finds the specified pattern starting at the specified line and moves the current position.
+     *
+     * @param pattern The pattern to find.
+     * @param startAtLine The line to start searching at.
+     * @param endAt A pattern to cause premature end of search or null.
      */
-    private boolean find(String text, TextPos startAtLine, String endAt) {
+    private boolean find(Pattern pattern, int startAtLine, Pattern endAt) {
         boolean result = false;
         int lastLine = this.buffer.getLastLine();
-        TextPos lineNo = startAtLine;
-        for (; lineNo.lessThanOrEqual(lastLine); lineNo = lineNo.increment()) {
-            Line line = this.buffer.getLine(lineNo);
-            TextPos ix = line.find(text, TextPos.FIRST, endAt);
-            if (ix != null) {
-                if (ix.value() != Integer.MAX_VALUE) {
-                    this.position = new Position(ix, lineNo);
+        LineFinder finder = LineFinder.forPattern(pattern);
+        Matcher endAtMatcher = endAt != null ? endAt.matcher("") : null;
+        // Lines without a match may still match 'endAt' so they can only be skipped without it.
+        int[] candidates = endAt == null ? getCandidateLines(pattern) : null;
+        for (int lineNo = TrigramIndex.nextLine(candidates, startAtLine); lineNo <= lastLine; lineNo = TrigramIndex.nextLine(candidates, lineNo + 1)) {
+            int ix = LineSearch.find(this.buffer.getLineChars(lineNo), finder, 0, endAtMatcher);
+            if (ix >= 0) {
+                if (ix != LineSearch.END_AT) {
+                    this.position = new Position(ix + 1, lineNo);
                     result = true;
                 }
                 break;
@@ -657,42 +731,72 @@ public class TextFileEditor {
      * @param text The text to find. This can be a regular expression.
      */
     public boolean findNext(String text) {
+        return findNext(PatternCache.get(text));
+    }
+
+    /**
+     * Finds the next occurence of the specified pattern and moves the current position.
+     *
+     * @param pattern The pattern to find.
+     */
+    public boolean findNext(Pattern pattern) {
         boolean result = false;
-        TextPos lastLine = this.buffer.getLastLineNumber();
-        TextPos column = this.position.getColumnNumber().increment(1);
-        TextPos lineNo = this.position.getLineNumber();
-        while (lineNo.lessThanOrEqual(lastLine)) {
-            Line line = this.buffer.getLine(lineNo);
-            column = line.find(text, column);
-            if (column != null) {
-                this.position = new Position(column, lineNo);
+        int lastLine = this.buffer.getLastLine();
+        int fromIndex = this.position.getColumn(); // The base 0 index of the column after the current.
+        int[] candidates = getCandidateLines(pattern);
+        int lineNo = TrigramIndex.nextLine(candidates, this.position.getLine());
+        if (lineNo != this.position.getLine()) {
+            fromIndex = 0;
+        }
+        LineFinder finder = LineFinder.forPattern(pattern);
+        while (lineNo <= lastLine) {
+            int ix = LineSearch.find(this.buffer.getLineChars(lineNo), finder, fromIndex, null);
+            if (ix >= 0) {
+                this.position = new Position(ix + 1, lineNo);
                 result = true;
                 break;
             }
             else {
-                lineNo = lineNo.increment();
-                column = TextPos.FIRST;
+                lineNo = TrigramIndex.nextLine(candidates, lineNo + 1);
+                fromIndex = 0;
             }
         }
         return result;
     }
 
     /**
-     * Finds the last occurence of the specifeid text and moves the current position.
+     * Finds the last occurence of the specifeid text and moves the current position to just after it.
+     * Only occurences after the current position are considered, and the search will not move the
+     * current position if no occurence is found.
      *
      * @param text The text to find. This can be a regular expression.
      */
     public boolean findLast(String text) {
-        if (findNext(text)) {
-            moveRight(text.length());
-            while(findNext(text)) {
-                moveRight(text.length());
+        return findLast(PatternCache.get(text));
+    }
+
+    /**
+     * Finds the last occurence of the specifeid pattern and moves the current position to just after it.
+     * Only occurences after the current position are considered, and the search will not move the
+     * current position if no occurence is found.
+     * <p>
+     * This searches backwards from the end of the file and stops at the first match found.
+     *
+     * @param pattern The pattern to find.
+     */
+    public boolean findLast(Pattern pattern) {
+        int firstLine = this.position.getLine();
+        int fromIndex = this.position.getColumn(); // The base 0 index of the column after the current.
+        LineFinder finder = LineFinder.forPattern(pattern);
+        int[] candidates = getCandidateLines(pattern);
+        for (int lineNo = TrigramIndex.prevLine(candidates, this.buffer.getLastLine()); lineNo >= firstLine; lineNo = TrigramIndex.prevLine(candidates, lineNo - 1)) {
+            int ix = LineSearch.findLast(this.buffer.getLineChars(lineNo), finder, lineNo == firstLine ? fromIndex : 0);
+            if (ix >= 0) {
+                this.position = new Position(finder.end() + 1, lineNo);
+                return true;
             }
-            return true;
-        }
-        else {
-            return false;
         }
+        return false;
     }
 
     /**
@@ -703,15 +807,26 @@ public class TextFileEditor {
      * @param text The text to find all occurences of. This can be a reqular expression.
      */
     public List<Occurence> findAllOccurences(String text) {
+        return findAllOccurences(PatternCache.get(text));
+    }
+
+    /**
+     * Returns a list of Occurence objects for each match. If no match was found the list will be empty.
+     * <p>
+     * This search will not move the current position, and will always start at the top of the file.
+     *
+     * @param pattern The pattern to find all occurences of.
+     */
+    public List<Occurence> findAllOccurences(Pattern pattern) {
         Position oldpos = this.position.clone();
         moveToTopOfFile();
 
         List<Occurence> occurences = new ArrayList<Occurence>();
 
-        if (find(text)) {
+        if (find(pattern)) {
             Occurence occurense = new Occurence(this.position, this.buffer.getOriginalBuffer());
             occurences.add(occurense);
-            while(findNext(text)) {
+            while(findNext(pattern)) {
                 occurense = new Occurence(this.position, this.buffer.getOriginalBuffer());
                 occurences.add(occurense);
             }
@@ -722,21 +837,77 @@ public class TextFileEditor {
         return occurences;
     }
 
+    /**
+     * Finds all occurences of several texts in one pass over the buffer and returns them grouped
+     * by text. The returned map has an entry for each text in the order given, with an empty list
+     * if the text was not found. Overlapping occurences are included.
+     * <p>
+     * Unlike the other find methods the texts are plain texts and not regular expressions! This
+     * is much faster than calling findAllOccurences(String) for each text when there are many.
+     * <p>
+     * This search will not move the current position.
+     *
+     * @param texts The texts to find all occurences of.
+     */
+    public Map<String, List<Occurence>> findAllOccurences(Collection<String> texts) {
+        final Map<String, List<Occurence>> result = new LinkedHashMap<String, List<Occurence>>();
+        List<String> keys = new ArrayList<String>();
+        final List<List<Occurence>> occurences = new ArrayList<List<Occurence>>();
+        for (String text : texts) {
+            if (!result.containsKey(text)) {
+                List<Occurence> textOccurences = new ArrayList<Occurence>();
+                result.put(text, textOccurences);
+                keys.add(text);
+                occurences.add(textOccurences);
+            }
+        }
+
+        AhoCorasick automaton = new AhoCorasick(keys);
+        final TextBuffer originalBuffer = this.buffer.getOriginalBuffer();
+        int lastLine = this.buffer.getLastLine();
+        for (int lineNo = 1; lineNo <= lastLine; lineNo++) {
+            final int line = lineNo;
+            automaton.search(this.buffer.getLineChars(lineNo), new AhoCorasick.Listener() {
+                public void found(int text, int start) {
+                    occurences.get(text).add(new Occurence(new Position(start + 1, line), originalBuffer));
+                }
+            });
+        }
+
+        return result;
+    }
+
     /**
      * Finds the last occurence of the specified text and returns it as an Occurence object.
      * This returns null if no occurence is found!
      * <p>
-     * This search will not move the current position, and will always start at the top of the file.
+     * This search will not move the current position, and will always consider the whole file.
      *
      * @param text The text to look for the last occurence of. This can be a reqular expression.
      */
     public Occurence findLastOccurence(String text) {
-        Occurence occurence = null;
-        List<Occurence> occurences = findAllOccurences(text);
-        if (occurences.size() > 0) {
-            occurence = occurences.get(occurences.size() - 1);
+        return findLastOccurence(PatternCache.get(text));
+    }
+
+    /**
+     * Finds the last occurence of the specified pattern and returns it as an Occurence object.
+     * This returns null if no occurence is found!
+     * <p>
+     * This search will not move the current position. It searches backwards from the end of the
+     * file and stops at the first match found.
+     *
+     * @param pattern The pattern to look for the last occurence of.
+     */
+    public Occurence findLastOccurence(Pattern pattern) {
+        LineFinder finder = LineFinder.forPattern(pattern);
+        int[] candidates = getCandidateLines(pattern);
+        for (int lineNo = TrigramIndex.prevLine(candidates, this.buffer.getLastLine()); lineNo >= 1; lineNo = TrigramIndex.prevLine(candidates, lineNo - 1)) {
+            int ix = LineSearch.findLast(this.buffer.getLineChars(lineNo), finder, 0);
+            if (ix >= 0) {
+                return new Occurence(new Position(ix + 1, lineNo), this.buffer.getOriginalBuffer());
+            }
         }
-        return occurence;
+        return null;
     }
 
     /**
@@ -745,10 +916,9 @@ public class TextFileEditor {
      */
     public boolean findBlankLine() {
         boolean found = false;
-        TextPos lineNo = this.position.getLineNumber();
-        for (; lineNo.lessThanOrEqual(this.buffer.getLastLineNumber()); lineNo = lineNo.increment()) {
-            Line line = this.buffer.getLine(lineNo);
-            if (line.isEmpty()) {
+        int lastLine = this.buffer.getLastLine();
+        for (int lineNo = this.position.getLine(); lineNo <= lastLine; lineNo++) {
+            if (this.buffer.isBlankLine(lineNo)) {
                 this.position.setLine(lineNo);
                 this.position.setColumn(TextPos.FIRST);
                 found = true;
@@ -808,7 +978,16 @@ public class TextFileEditor {
      * @param regexp A regular expression to match with the line.
      */
     public boolean lineMatches(String regexp) {
-        return getLineAsLine().matches(regexp);
+        return lineMatches(PatternCache.get(regexp));
+    }
+
+    /**
+     * Returns true if the current line matches the specified pattern.
+     *
+     * @param pattern A pattern to match with the line.
+     */
+    public boolean lineMatches(Pattern pattern) {
+        return pattern.matcher(this.buffer.getLineChars(this.position.getLine())).matches();
     }
 
     /**
@@ -819,11 +998,22 @@ public class TextFileEditor {
      * @param regexp The regular expression to match with the next line.
      */
     public boolean nextLineMatches(String regexp) {
+        return nextLineMatches(PatternCache.get(regexp));
+    }
+
+    /**
+     * Moves down to the next line and returns true if that line matches the
+     * specified pattern. If it tries to move beyond last line of
+     * file then false is returned.
+     *
+     * @param pattern The pattern to match with the next line.
+     */
+    public boolean nextLineMatches(Pattern pattern) {
         if (this.position.getLineNumber().equals(this.buffer.getLastLineNumber())) {
             return false;
         }
         moveDown(1);
-        return lineMatches(regexp);
+        return lineMatches(pattern);
     }
 
     /**
@@ -834,12 +1024,26 @@ public class TextFileEditor {
      * @param regexp The regular expression to find all occurences of.
      */
     public List<Occurence> findAllLinesMatching(String regexp) {
+        return findAllLinesMatching(PatternCache.get(regexp));
+    }
+
+    /**
+     * Returns a list of Occurence objects for each line matching the pattern. If no match was found the
+     * list will be empty.
+     * <p>
+     * This search will not move the current position, and will always start at the top of the file.
+     *
+     * @param pattern The pattern to find all matching lines of.
+     */
+    public List<Occurence> findAllLinesMatching(Pattern pattern) {
         List<Occurence> occurences = new ArrayList<Occurence>();
 
-        TextPos lineNo = TextPos.FIRST;
-        for (; lineNo.lessThanOrEqual(this.buffer.getLastLineNumber()); lineNo = lineNo.increment()) {
-            if (this.buffer.getLine(lineNo).matches(regexp)) {
-                Occurence occurense = new Occurence(new Position(TextPos.FIRST, lineNo), this.buffer.getOriginalBuffer());
+        int lastLine = this.buffer.getLastLine();
+        Matcher matcher = pattern.matcher("");
+        int[] candidates = getCandidateLines(pattern);
+        for (int lineNo = TrigramIndex.nextLine(candidates, 1); lineNo <= lastLine; lineNo = TrigramIndex.nextLine(candidates, lineNo + 1)) {
+            if (matcher.reset(this.buffer.getLineChars(lineNo)).matches()) {
+                Occurence occurense = new Occurence(new Position(1, lineNo), this.buffer.getOriginalBuffer());
                 occurences.add(occurense);
             }
         }
@@ -847,6 +1051,118 @@ public class TextFileEditor {
         return occurences;
     }
 
+    /**
+     * Returns a list of Occurence objects for each match, searching chunks of lines in parallel on the
+     * common ForkJoinPool. The result is the same as for findAllOccurences(String).
+     * <p>
+     * The buffer must not be modified while this is running. This search will not move the current position.
+     *
+     * @param text The text to find all occurences of. This can be a regular expression.
+     */
+    public List<Occurence> findAllOccurencesParallel(String text) {
+        return findAllOccurencesParallel(PatternCache.get(text), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns a list of Occurence objects for each match, searching chunks of lines in parallel on the
+     * specified pool. The result is the same as for findAllOccurences(Pattern).
+     * <p>
+     * The buffer must not be modified while this is running. This search will not move the current position.
+     *
+     * @param pattern The pattern to find all occurences of.
+     * @param pool The pool to run the search on.
+     */
+    public List<Occurence> findAllOccurencesParallel(Pattern pattern, ForkJoinPool pool) {
+        return pool.invoke(new ParallelLineSearch(this.buffer, pattern, false, 1, this.buffer.getLastLine() + 1));
+    }
+
+    /**
+     * Returns a list of Occurence objects for each line matching the regular expression, searching chunks
+     * of lines in parallel on the common ForkJoinPool. The result is the same as for findAllLinesMatching(String).
+     * <p>
+     * The buffer must not be modified while this is running. This search will not move the current position.
+     *
+     * @param regexp The regular expression to find all matching lines of.
+     */
+    public List<Occurence> findAllLinesMatchingParallel(String regexp) {
+        return findAllLinesMatchingParallel(PatternCache.get(regexp), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns a list of Occurence objects for each line matching the pattern, searching chunks of lines
+     * in parallel on the specified pool. The result is the same as for findAllLinesMatching(Pattern).
+     * <p>
+     * The buffer must not be modified while this is running. This search will not move the current position.
+     *
+     * @param pattern The pattern to find all matching lines of.
+     * @param pool The pool to run the search on.
+     */
+    public List<Occurence> findAllLinesMatchingParallel(Pattern pattern, ForkJoinPool pool) {
+        return pool.invoke(new ParallelLineSearch(this.buffer, pattern, true, 1, this.buffer.getLastLine() + 1));
+    }
+
+    /**
+     * Returns a lazy stream of Occurence objects for each match. The result is the same as for
+     * findAllOccurences(String), but the buffer is only searched as far as the stream is consumed.
+     * Use iterator() of the stream to iterate the occurences, or parallel() to search in parallel.
+     * <p>
+     * The buffer must not be modified while the stream is in use. This will not move the current position.
+     *
+     * @param text The text to find all occurences of. This can be a regular expression.
+     */
+    public Stream<Occurence> streamAllOccurences(String text) {
+        return streamAllOccurences(PatternCache.get(text));
+    }
+
+    /**
+     * Returns a lazy stream of Occurence objects for each match. The result is the same as for
+     * findAllOccurences(Pattern), but the buffer is only searched as far as the stream is consumed.
+     * Use iterator() of the stream to iterate the occurences, or parallel() to search in parallel.
+     * <p>
+     * The buffer must not be modified while the stream is in use. This will not move the current position.
+     *
+     * @param pattern The pattern to find all occurences of.
+     */
+    public Stream<Occurence> streamAllOccurences(Pattern pattern) {
+        return StreamSupport.stream(new OccurenceSpliterator(this.buffer, pattern, false, 1, this.buffer.getLastLine() + 1), false);
+    }
+
+    /**
+     * Returns a lazy stream of Occurence objects for each line matching the regular expression. The result
+     * is the same as for findAllLinesMatching(String), but the buffer is only searched as far as the stream
+     * is consumed.
+     * <p>
+     * The buffer must not be modified while the stream is in use. This will not move the current position.
+     *
+     * @param regexp The regular expression to find all matching lines of.
+     */
+    public Stream<Occurence> streamAllLinesMatching(String regexp) {
+        return streamAllLinesMatching(PatternCache.get(regexp));
+    }
+
+    /**
+     * Returns a lazy stream of Occurence objects for each line matching the pattern. The result is the
+     * same as for findAllLinesMatching(Pattern), but the buffer is only searched as far as the stream
+     * is consumed.
+     * <p>
+     * The buffer must not be modified while the stream is in use. This will not move the current position.
+     *
+     * @param pattern The pattern to find all matching lines of.
+     */
+    public Stream<Occurence> streamAllLinesMatching(Pattern pattern) {
+        return StreamSupport.stream(new OccurenceSpliterator(this.buffer, pattern, true, 1, this.buffer.getLastLine() + 1), false);
+    }
+
+    /**
+     * Returns a lazy stream of Occurence objects for each blank line. The result is the same as for
+     * findAllBlankLines(), but the buffer is only searched as far as the stream is consumed.
+     * <p>
+     * The buffer must not be modified while the stream is in use. This will not move the current position.
+     */
+    public Stream<Occurence> streamAllBlankLines() {
+        return StreamSupport.stream(new OccurenceSpliterator(this.buffer, null, true, 1, this.buffer.getLastLine() + 1), false);
+    }
+
     //
     // Selection methods
     //
@@ -898,6 +1214,51 @@ public class TextFileEditor {
         return result;
     }
 
+    /**
+     * Enables an index of bracket pairs for moveToMatching(...) and selectToMatching(...). The index
+     * is built in one pass over the buffer the first time it is needed, after which matching brackets
+     * are looked up instead of searched for. Any change to the buffer makes the index be built again
+     * when next needed, so this is only useful when several moves are done between edits. The buffer
+     * must keep a modification count, which all buffers of this package do.
+     *
+     * @param pairs The bracket pairs to index, each pair as an opening and a closing character,
+     *              for example "{}()[]&lt;&gt;". Pass null to disable the index.
+     */
+    public void setBracketIndexPairs(String pairs) {
+        this.bracketPairs = pairs;
+    }
+
+    /**
+     * Enables a trigram index of the buffer that narrows down the lines to search for find(...),
+     * findNext(...), findLast(...), findAllOccurences(...), findLastOccurence(...), and
+     * findAllLinesMatching(...) before the lines are actually searched. The index is built in one
+     * pass over the buffer the first time it is needed and is then kept up to date by the edits
+     * made by this editor, so this pays off when the same buffer is searched many times.
+     * <p>
+     * Only texts and patterns that require some text of at least three characters can be narrowed,
+     * other patterns search every line just like without the index. The buffer must keep a
+     * modification count, which all buffers of this package do.
+     *
+     * @param enabled True to enable the index, false to disable it.
+     */
+    public void setTrigramIndexEnabled(boolean enabled) {
+        this.trigramIndexEnabled = enabled;
+    }
+
+    /**
+     * Returns the lines in ascending order that may contain a match of the pattern, or null if
+     * every line must be searched.
+     *
+     * @param pattern The pattern to search for.
+     */
+    private int[] getCandidateLines(Pattern pattern) {
+        if (!this.trigramIndexEnabled) {
+            return null;
+        }
+        TrigramIndex index = this.buffer.getTrigramIndex();
+        return index != null ? index.candidateLines(pattern) : null;
+    }
+
     /**
      * Moves to the next "end" character at the 0 level. To look for a matching parentesis
      * do moveToMatching('(', ')');, to a matching brace moveToMatching('{', '}');
@@ -906,14 +1267,31 @@ public class TextFileEditor {
      * are standing on the starting character it will not be seen and thus the level count will
      * be wrong and the end will be missed, and it might en up moving to the end of the file.
      *
+     * <p>
+     * Empty lines are skipped. If no matching character is found the position ends up at the
+     * last character of the file.
+     * <p>
+     * If the start and end characters are one of the pairs given to setBracketIndexPairs(...) the
+     * matching character is looked up in the bracket index instead of searching for it.
+     *
      * @param start This character increases the level.
      * @param end This is what to look for and also decreses the level.
      */
     public void moveToMatching(char start, char end) {
+        if (this.bracketPairs != null) {
+            BracketIndex index = this.buffer.getBracketIndex(this.bracketPairs);
+            long matching = index != null ? index.findMatching(start, end, this.position.getLine(), this.position.getColumn()) : -1;
+            if (matching >= 0) {
+                this.position = new Position(BracketIndex.column(matching), BracketIndex.line(matching));
+                return;
+            }
+        }
+
+        CharCursor cursor = new CharCursor(this.buffer, this.position.getLine(), this.position.getColumn());
         int level = 0;
         boolean found = false;
         while (!found) {
-            char c = moveToAndReturnNextChar();
+            char c = cursor.next();
 
             if (c == end) {
                 --level;
@@ -922,7 +1300,7 @@ public class TextFileEditor {
             if (c == end && level <= 0) {
                 found = true;
             }
-            if (c == END_OF_FILE_CHAR) {
+            if (c == CharCursor.END_OF_FILE) {
                 found = true;
             }
 
@@ -931,6 +1309,7 @@ public class TextFileEditor {
             }
 
         }
+        this.position = new Position(cursor.getColumn(), cursor.getLine());
     }
 
     /**
@@ -1029,20 +1408,101 @@ public class TextFileEditor {
 
     /**
      * Replaces all occurances of the specified text with the new text in the whole buffer.
+     * <p>
+     * Only lines that actually contain the text are changed. An empty text replaces nothing.
      *
-     * @param text The text to replace. Can be a regular expression.
+     * @param text The plain text to replace.
      * @param replaceWithText The new text to replace the old with.
+     *
+     * @return The number of replacements made.
+     */
+    public int replaceAllInFile(String text, String replaceWithText) {
+        LineReplacer replacer = new LineReplacer(text, replaceWithText);
+        int lastLine = this.buffer.getLastLine();
+        for (int lineNo = 1; lineNo <= lastLine; lineNo++) {
+            String replaced = replacer.replace(this.buffer.getLineChars(lineNo));
+            if (replaced != null) {
+                this.buffer.setLine(lineNo, replaced);
+            }
+        }
+        return replacer.getCount();
+    }
+
+    /**
+     * Replaces all occurances of several texts in the whole buffer in one pass.
+     * <p>
+     * This is much faster than calling replaceAllInFile(String, String) once per text when there are
+     * many texts. Each line is scanned once for all texts. Where texts overlap the leftmost one is
+     * replaced, and of those starting at the same column the longest one. Replaced text is never
+     * searched again. Only lines that actually contain any of the texts are changed.
+     *
+     * @param replacements The plain texts to replace mapped to the new texts to replace them with.
+     *
+     * @return The number of replacements made per text to replace.
      */
-    public void replaceAllInFile(String text, String replaceWithText) {
+    public Map<String, Integer> replaceAllInFile(Map<String, String> replacements) {
+        MultiReplacer replacer = new MultiReplacer(replacements);
         int lastLine = this.buffer.getLastLine();
-        TextPos lineNo = TextPos.FIRST;
-        for (; lineNo.lessThanOrEqual(lastLine); lineNo = lineNo.increment()) {
-            Line line = this.buffer.getLine(lineNo);
-            if (line != null) {
-                line.replaceAll(text, replaceWithText);
-                this.buffer.setLine(lineNo, line);
+        for (int lineNo = 1; lineNo <= lastLine; lineNo++) {
+            String replaced = replacer.replace(this.buffer.getLineChars(lineNo));
+            if (replaced != null) {
+                this.buffer.setLine(lineNo, replaced);
             }
         }
+        return replacer.getCounts();
+    }
+
+    /**
+     * Replaces all matches of a pattern in the whole buffer. The replacement can refer to groups of
+     * the match with $1 or ${name} just like String.replaceAll(...).
+     * <p>
+     * Only lines where the pattern matches are changed.
+     *
+     * @param pattern The pattern to replace matches of.
+     * @param replacement The replacement text.
+     *
+     * @return The number of replacements made.
+     */
+    public int replaceAllInFile(Pattern pattern, String replacement) {
+        RegexpReplacer replacer = new RegexpReplacer(pattern, replacement);
+        int lastLine = this.buffer.getLastLine();
+        for (int lineNo = 1; lineNo <= lastLine; lineNo++) {
+            String replaced = replacer.replace(this.buffer.getLineChars(lineNo));
+            if (replaced != null) {
+                this.buffer.setLine(lineNo, replaced);
+            }
+        }
+        return replacer.getCount();
+    }
+
+    /**
+     * Replaces all matches of a pattern in the whole buffer, processing chunks of lines in parallel on
+     * the common ForkJoinPool. The result is the same as for replaceAllInFile(Pattern, String).
+     *
+     * @param pattern The pattern to replace matches of.
+     * @param replacement The replacement text.
+     *
+     * @return The number of replacements made.
+     */
+    public int replaceAllInFileParallel(Pattern pattern, String replacement) {
+        return replaceAllInFileParallel(pattern, replacement, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Replaces all matches of a pattern in the whole buffer, processing chunks of lines in parallel on
+     * the specified pool. The result is the same as for replaceAllInFile(Pattern, String).
+     * <p>
+     * The new text of all changed lines is collected in parallel and then written to the buffer
+     * on the calling thread.
+     *
+     * @param pattern The pattern to replace matches of.
+     * @param replacement The replacement text.
+     * @param pool The pool to run on.
+     *
+     * @return The number of replacements made.
+     */
+    public int replaceAllInFileParallel(Pattern pattern, String replacement, ForkJoinPool pool) {
+        return pool.invoke(new ParallelLineReplace(this.buffer, pattern, replacement, 1, this.buffer.getLastLine() + 1)).apply(this.buffer);
     }
 
     /**
@@ -1074,33 +1534,57 @@ public class TextFileEditor {
      * @param insertBuffer The buffer to insert.
      */
     public void insertTextBuffer(TextBuffer insertBuffer) {
+        if (insertBuffer.getSize() == 0) {
+            return;
+        }
 
         String addToEnd = "";
         // Please note that TextBuffers index start at 0.
-        int lastBufferLine = new TextPos(insertBuffer.getSize()).baseZeroValue();
-        for (int i = 0; i <= lastBufferLine; i++) {
-            String insLine = insertBuffer.getLine(i);
-            if (i == 0) {
-                if (this.position.getColumnNumber().greaterThan(TextPos.FIRST)) {
-                    String line = getLine();
-                    if (this.position.getColumn() < line.length()) {
-                        addToEnd = line.substring(this.position.getColumnNumber().baseZeroValue());
-                    }
-                    line = line.substring(0, this.position.getColumnNumber().baseZeroValue());
-                    line = line + insLine;
-                    setLine(line);
-                }
-                else {
-                    insertLineAbove(insLine);
-                }
-            }
-            else if (i == lastBufferLine) {
-                insertLine(insLine + addToEnd);
-            }
-            else {
-                insertLine(insLine);
+        String insLine = insertBuffer.getLine(0);
+        if (this.position.getColumn() > 1) {
+            String line = getLine();
+            if (this.position.getColumn() < line.length()) {
+                addToEnd = line.substring(this.position.getColumnNumber().baseZeroValue());
             }
+            line = line.substring(0, this.position.getColumnNumber().baseZeroValue());
+            line = line + insLine;
+            setLine(line);
+        }
+        else {
+            insertLineAbove(insLine);
         }
+
+        List<String> lines = getLines(insertBuffer, 1);
+        if (!lines.isEmpty()) {
+            int last = lines.size() - 1;
+            lines.set(last, lines.get(last) + addToEnd);
+            insertLinesBelow(lines);
+        }
+    }
+
+    /**
+     * Returns the lines of a buffer as a list.
+     *
+     * @param buffer The buffer to get the lines of.
+     * @param from The first line (base 0) to get.
+     */
+    private static List<String> getLines(TextBuffer buffer, int from) {
+        int size = buffer.getSize();
+        List<String> lines = new ArrayList<String>(Math.max(size - from, 0));
+        for (int i = from; i < size; i++) {
+            lines.add(buffer.getLine(i));
+        }
+        return lines;
+    }
+
+    /**
+     * Inserts lines after the current line and moves the current position to the last inserted line.
+     *
+     * @param lines The lines to insert.
+     */
+    private void insertLinesBelow(List<String> lines) {
+        this.buffer.insertLines(this.position.getLine() + 1, lines);
+        this.position.setLine(this.position.getLine() + lines.size());
     }
     
     /**
@@ -1135,9 +1619,7 @@ public class TextFileEditor {
         
         int noLines = this.selection.getEnd().getLine() - this.selection.getStart().getLine() + 1; // Add one since both start and end is inclusive!
 
-        for (int i = 0; i < noLines; i++) {
-            this.buffer.removeLine(this.selection.getStart().getLineNumber());
-        }
+        this.buffer.removeLines(this.selection.getStart().getLine(), noLines);
 
         if (resultingLine.length() != 0) {
             this.buffer.insertLine(this.selection.getStart().getLineNumber(), resultingLine);
@@ -1201,11 +1683,7 @@ public class TextFileEditor {
      * @param buffer The buffer to insert.
      */
     public void insertBuffer(TextBuffer buffer) {
-        insertLine(buffer.getLine(0));
-        int line;
-        for (line = 1; line < buffer.getSize(); line ++) {
-            insertLine(buffer.getLine(line));
-        }
+        insertLinesBelow(getLines(buffer, 0));
     }
 
     /**
@@ -1213,10 +1691,7 @@ public class TextFileEditor {
      */
     public void appendBuffer(TextBuffer buffer) {
         moveToEndOfFile();
-        int bsize = buffer.getSize();
-        for (int i = 0; i < bsize; i++) {
-            insertLine(buffer.getLine(i));
-        }
+        insertLinesBelow(getLines(buffer, 0));
     }
     
     /**
@@ -1252,7 +1727,7 @@ public class TextFileEditor {
     public void deleteCurrentWord(char delimeter) {
         Line line = this.buffer.getLine(this.position.getLineNumber());
 
-        while (this.position.getColumnNumber().greaterThan(TextPos.FIRST) && !(line.charAt(this.position.getColumn()) == delimeter)) {
+        while (this.position.getColumn() > 1 && !(line.charAt(this.position.getColumn()) == delimeter)) {
             this.position.decrementColumnm();
         }
         if (line.charAt(this.position.getColumn()) == delimeter) {
@@ -1265,7 +1740,7 @@ public class TextFileEditor {
         }
 
         Line newLine;
-        if (this.position.getColumnNumber().greaterThan(TextPos.FIRST)) {
+        if (this.position.getColumn() > 1) {
             newLine = line.subLine(TextPos.FIRST, this.position.getColumnNumber().decrement()).append(line.subLine(new TextPos(endWord), TextPos.LAST));
         }
         else {
@@ -0,0 +1,291 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * An Aho-Corasick automaton for finding any number of plain texts in one pass over a line.
+ * <p>
+ * Either every occurence of every text is reported, including overlapping occurences, or only
+ * the leftmost longest non overlapping occurences as used when replacing. The automaton
+ * is immutable once built and can thereby be shared between threads. Please note that indexes
+ * here are base 0!
+ */
+public class AhoCorasick {
+    //
+    // Private Members
+    //
+
+    /** The number of states in the automaton. State 0 is the root. */
+    private int size = 1;
+
+    /** For each state the sorted characters that have a transition. */
+    private char[][] labels = new char[16][];
+
+    /** For each state the target states for the characters in labels. */
+    private int[][] targets = new int[16][];
+
+    /** For each state the state of the longest proper suffix that is also in the automaton. */
+    private int[] fail = new int[16];
+
+    /** For each state the index of the text ending in that state or -1. */
+    private int[] key = new int[16];
+
+    /** For each state the closest state reachable through fail links that ends a text, or 0 for none. */
+    private int[] output = new int[16];
+
+    /** For each state the length of the text leading to it. */
+    private int[] depth = new int[16];
+
+    /** The length of each text. */
+    private int[] keyLengths;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new AhoCorasick automaton.
+     *
+     * @param texts The texts to find. Indexes into this list are what is reported. Empty texts never match.
+     */
+    public AhoCorasick(List<String> texts) {
+        this.labels[0] = new char[0];
+        this.targets[0] = new int[0];
+        this.key[0] = -1;
+        this.keyLengths = new int[texts.size()];
+
+        for (int k = 0; k < texts.size(); k++) {
+            String text = texts.get(k);
+            this.keyLengths[k] = text.length();
+            if (text.length() == 0) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                int next = transition(state, text.charAt(i));
+                if (next < 0) {
+                    next = addState(state, text.charAt(i));
+                }
+                state = next;
+            }
+            if (this.key[state] < 0) {
+                this.key[state] = k;
+            }
+        }
+
+        buildFailLinks();
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Adds a new state with a transition from the specified state.
+     *
+     * @param from The state to add a transition from.
+     * @param c The character of the transition.
+     */
+    private int addState(int from, char c) {
+        if (this.size == this.fail.length) {
+            int capacity = this.size * 2;
+            this.labels = Arrays.copyOf(this.labels, capacity);
+            this.targets = Arrays.copyOf(this.targets, capacity);
+            this.fail = Arrays.copyOf(this.fail, capacity);
+            this.key = Arrays.copyOf(this.key, capacity);
+            this.output = Arrays.copyOf(this.output, capacity);
+            this.depth = Arrays.copyOf(this.depth, capacity);
+        }
+        int state = this.size++;
+        this.depth[state] = this.depth[from] + 1;
+        this.labels[state] = new char[0];
+        this.targets[state] = new int[0];
+        this.key[state] = -1;
+
+        char[] chars = this.labels[from];
+        int[] states = this.targets[from];
+        int ix = -(Arrays.binarySearch(chars, c) + 1);
+        char[] newChars = new char[chars.length + 1];
+        int[] newStates = new int[states.length + 1];
+        System.arraycopy(chars, 0, newChars, 0, ix);
+        System.arraycopy(states, 0, newStates, 0, ix);
+        newChars[ix] = c;
+        newStates[ix] = state;
+        System.arraycopy(chars, ix, newChars, ix + 1, chars.length - ix);
+        System.arraycopy(states, ix, newStates, ix + 1, states.length - ix);
+        this.labels[from] = newChars;
+        this.targets[from] = newStates;
+
+        return state;
+    }
+
+    /**
+     * Returns the state reached from a state by a character, or -1 if there is no such transition.
+     *
+     * @param state The state to go from.
+     * @param c The character to go by.
+     */
+    private int transition(int state, char c) {
+        int ix = Arrays.binarySearch(this.labels[state], c);
+        return ix >= 0 ? this.targets[state][ix] : -1;
+    }
+
+    /**
+     * Sets the fail and output links of all states in breadth first order.
+     */
+    private void buildFailLinks() {
+        Deque<Integer> queue = new ArrayDeque<Integer>();
+        for (int child : this.targets[0]) {
+            this.fail[child] = 0;
+            this.output[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.remove();
+            char[] chars = this.labels[state];
+            int[] states = this.targets[state];
+            for (int i = 0; i < chars.length; i++) {
+                int child = states[i];
+                int f = this.fail[state];
+                int next = transition(f, chars[i]);
+                while (next < 0 && f != 0) {
+                    f = this.fail[f];
+                    next = transition(f, chars[i]);
+                }
+                this.fail[child] = next >= 0 ? next : 0;
+                this.output[child] = this.key[this.fail[child]] >= 0 ? this.fail[child] : this.output[this.fail[child]];
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Finds all occurences of all texts in the line and reports them to the listener in the order they end.
+     *
+     * @param line The line to search.
+     * @param listener Receives the occurences.
+     */
+    public void search(CharSequence line, Listener listener) {
+        int state = 0;
+        int length = line.length();
+        for (int i = 0; i < length; i++) {
+            char c = line.charAt(i);
+            int next = transition(state, c);
+            while (next < 0 && state != 0) {
+                state = this.fail[state];
+                next = transition(state, c);
+            }
+            state = next >= 0 ? next : 0;
+
+            int match = this.key[state] >= 0 ? state : this.output[state];
+            while (match != 0) {
+                int k = this.key[match];
+                listener.found(k, i + 1 - this.keyLengths[k]);
+                match = this.output[match];
+            }
+        }
+    }
+
+    /**
+     * Finds the leftmost longest non overlapping occurences of the texts in the line and reports them
+     * to the listener in order. At each position the longest text starting there wins, and searching
+     * then continues after it.
+     *
+     * @param line The line to search.
+     * @param listener Receives the occurences.
+     */
+    public void searchLeftmostLongest(CharSequence line, Listener listener) {
+        int bestKey = -1;
+        int bestStart = 0;
+        int state = 0;
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            char c = line.charAt(i);
+            int next = transition(state, c);
+            while (next < 0 && state != 0) {
+                state = this.fail[state];
+                next = transition(state, c);
+            }
+            state = next >= 0 ? next : 0;
+
+            int match = this.key[state] >= 0 ? state : this.output[state];
+            while (match != 0) {
+                int k = this.key[match];
+                int start = i + 1 - this.keyLengths[k];
+                if (bestKey < 0 || start < bestStart || (start == bestStart && this.keyLengths[k] > this.keyLengths[bestKey])) {
+                    bestKey = k;
+                    bestStart = start;
+                }
+                match = this.output[match];
+            }
+            ++i;
+
+            // No later occurence can start before the text of the current state does.
+            if (bestKey >= 0 && (i - this.depth[state] > bestStart || i == length)) {
+                listener.found(bestKey, bestStart);
+                i = bestStart + this.keyLengths[bestKey];
+                state = 0;
+                bestKey = -1;
+            }
+        }
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * Receives the occurences found by search().
+     */
+    public static interface Listener {
+
+        /**
+         * Called for each occurence found.
+         *
+         * @param text The index of the found text in the list the automaton was created with.
+         * @param start The base 0 index in the line where the text starts.
+         */
+        public void found(int text, int start);
+    }
+}
@@ -0,0 +1,202 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import java.util.Arrays;
+
+/**
+ * An index of the positions of bracket characters in a buffer, mapping each opening bracket to
+ * its closing bracket.
+ * <p>
+ * The index is built in one pass over the buffer for a set of bracket pairs, such as "{}()[]".
+ * The brackets of each pair are kept as a sorted array of positions so that the first bracket
+ * after any position is found with a binary search, and the bracket matching an opening bracket
+ * is then looked up directly. Brackets are counted exactly like moveToMatching(...) of the editor
+ * counts them, that is all brackets count, also those within strings or comments.
+ * <p>
+ * The index is only valid as long as the buffer is not modified. Positions are base 1 and are
+ * packed into a long as (line << 32) | column.
+ */
+public class BracketIndex {
+    //
+    // Private Members
+    //
+
+    /** The bracket pairs, each pair as an opening and a closing character. */
+    private String pairs;
+
+    /** For each pair the positions of its brackets in buffer order. */
+    private long[][] positions;
+
+    /**
+     * For each pair and bracket the index of the matching closing bracket for an opening bracket, the
+     * index of the bracket itself for a closing bracket, or -1 for an unmatched opening bracket.
+     */
+    private int[][] matches;
+
+    /** For each pair the number of brackets. */
+    private int[] sizes;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Builds a new BracketIndex.
+     *
+     * @param buffer The buffer to index.
+     * @param pairs The bracket pairs to index, each pair as an opening and a closing character, for example "{}()".
+     */
+    public BracketIndex(BufferWrapper buffer, String pairs) {
+        if (pairs.length() % 2 != 0) {
+            throw new IllegalArgumentException("Bracket pairs must be given as pairs of characters: '" + pairs + "'!");
+        }
+        this.pairs = pairs;
+        int noPairs = pairs.length() / 2;
+        this.positions = new long[noPairs][16];
+        this.matches = new int[noPairs][16];
+        this.sizes = new int[noPairs];
+        int[][] stacks = new int[noPairs][16];
+        int[] stackSizes = new int[noPairs];
+
+        int lastLine = buffer.getLastLine();
+        for (int lineNo = 1; lineNo <= lastLine; lineNo++) {
+            CharSequence line = buffer.getLineChars(lineNo);
+            int length = line.length();
+            for (int i = 0; i < length; i++) {
+                int ix = pairs.indexOf(line.charAt(i));
+                if (ix < 0) {
+                    continue;
+                }
+                int pair = ix / 2;
+                int bracket = add(pair, ((long)lineNo << 32) | (i + 1));
+                if (ix % 2 == 0) {
+                    this.matches[pair][bracket] = -1;
+                    if (stackSizes[pair] == stacks[pair].length) {
+                        stacks[pair] = Arrays.copyOf(stacks[pair], stackSizes[pair] * 2);
+                    }
+                    stacks[pair][stackSizes[pair]++] = bracket;
+                }
+                else {
+                    this.matches[pair][bracket] = bracket;
+                    if (stackSizes[pair] > 0) {
+                        this.matches[pair][stacks[pair][--stackSizes[pair]]] = bracket;
+                    }
+                }
+            }
+        }
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Adds a bracket position to a pair and returns its index.
+     *
+     * @param pair The pair to add to.
+     * @param position The position of the bracket.
+     */
+    private int add(int pair, long position) {
+        int size = this.sizes[pair];
+        if (size == this.positions[pair].length) {
+            this.positions[pair] = Arrays.copyOf(this.positions[pair], size * 2);
+            this.matches[pair] = Arrays.copyOf(this.matches[pair], size * 2);
+        }
+        this.positions[pair][size] = position;
+        this.sizes[pair] = size + 1;
+        return size;
+    }
+
+    /**
+     * Returns the bracket pairs of the index.
+     */
+    public String getPairs() {
+        return this.pairs;
+    }
+
+    /**
+     * Returns the position of the closing bracket at level 0 after the specified position, just
+     * like moveToMatching(...) of the editor finds it. Returns -1 if the pair is not indexed or there
+     * is no such closing bracket.
+     *
+     * @param start The opening bracket.
+     * @param end The closing bracket.
+     * @param line The line to start after.
+     * @param column The column to start after.
+     */
+    public long findMatching(char start, char end, int line, int column) {
+        int pair = -1;
+        for (int i = 0; i < this.pairs.length(); i += 2) {
+            if (this.pairs.charAt(i) == start && this.pairs.charAt(i + 1) == end) {
+                pair = i / 2;
+                break;
+            }
+        }
+        if (pair < 0) {
+            return -1;
+        }
+
+        int ix = Arrays.binarySearch(this.positions[pair], 0, this.sizes[pair], ((long)line << 32) | column);
+        ix = ix >= 0 ? ix + 1 : -ix - 1;
+        if (ix >= this.sizes[pair]) {
+            return -1;
+        }
+        // The first bracket is either the closing bracket itself or an opening bracket whose closing bracket brings the level back to 0.
+        int match = this.matches[pair][ix];
+        return match >= 0 ? this.positions[pair][match] : -1;
+    }
+
+    /**
+     * Returns the line of a packed position.
+     *
+     * @param position The packed position.
+     */
+    public static int line(long position) {
+        return (int)(position >>> 32);
+    }
+
+    /**
+     * Returns the column of a packed position.
+     *
+     * @param position The packed position.
+     */
+    public static int column(long position) {
+        return (int)position;
+    }
+}
@@ -42,6 +42,7 @@ import se.natusoft.tools.fileeditor.Position;
 import se.natusoft.tools.fileeditor.TextBuffer;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * This wraps a TextBuffer and works with internal editor objects.
@@ -58,6 +59,24 @@ public class BufferWrapper {
     
     /** The TextBuffer to wrap. */
     private TextBuffer buffer = null;
+
+    /** The last calculated content hash. */
+    private long contentHash = 0;
+
+    /** The modification count of the buffer when contentHash was calculated or -1 if not calculated. */
+    private long contentHashModCount = -1;
+
+    /** The last built bracket index or null. */
+    private BracketIndex bracketIndex = null;
+
+    /** The modification count of the buffer when bracketIndex was built. */
+    private long bracketIndexModCount = -1;
+
+    /** The trigram index or null if not asked for yet. */
+    private TrigramIndex trigramIndex = null;
+
+    /** The modification count of the buffer when trigramIndex was last built or updated. */
+    private long trigramIndexModCount = -1;
     
         
     //
@@ -76,6 +95,89 @@ public class BufferWrapper {
     // Methods
     //
 
+    /**
+     * Returns true if the buffer has been changed since it was loaded or last saved.
+     */
+    public boolean isModified() {
+        return this.buffer.isModified();
+    }
+
+    /**
+     * Returns a hash of the content of the buffer. The hash is remembered until the buffer is
+     * modified if the buffer keeps a modification count.
+     */
+    public long getContentHash() {
+        long modCount = this.buffer.getModificationCount();
+        if (modCount < 0 || modCount != this.contentHashModCount) {
+            this.contentHash = ContentHash.of(this.buffer);
+            this.contentHashModCount = modCount;
+        }
+        return this.contentHash;
+    }
+
+    /**
+     * Returns an index of the specified bracket pairs. The index is remembered until the buffer is
+     * modified. This returns null if the buffer does not keep a modification count since it is then
+     * not possible to know when the index becomes invalid.
+     *
+     * @param pairs The bracket pairs to index, each pair as an opening and a closing character.
+     */
+    public BracketIndex getBracketIndex(String pairs) {
+        long modCount = this.buffer.getModificationCount();
+        if (modCount < 0) {
+            return null;
+        }
+        if (this.bracketIndex == null || modCount != this.bracketIndexModCount || !this.bracketIndex.getPairs().equals(pairs)) {
+            this.bracketIndex = new BracketIndex(this, pairs);
+            this.bracketIndexModCount = modCount;
+        }
+        return this.bracketIndex;
+    }
+
+    /**
+     * Returns a trigram index of the buffer. The index is built the first time it is asked for and is then
+     * updated by each edit made through this wrapper. If the buffer is modified in any other way the index
+     * is built again when next asked for. This returns null if the buffer does not keep a modification count.
+     */
+    public TrigramIndex getTrigramIndex() {
+        long modCount = this.buffer.getModificationCount();
+        if (modCount < 0) {
+            return null;
+        }
+        if (this.trigramIndex == null || modCount != this.trigramIndexModCount) {
+            this.trigramIndex = new TrigramIndex(this);
+            this.trigramIndexModCount = modCount;
+        }
+        return this.trigramIndex;
+    }
+
+    /**
+     * Returns the trigram index if it is up to date with the buffer, and thereby can be updated
+     * for an edit about to be made, or null otherwise.
+     */
+    private TrigramIndex getTrigramIndexToUpdate() {
+        if (this.trigramIndex != null && this.buffer.getModificationCount() == this.trigramIndexModCount) {
+            return this.trigramIndex;
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if the buffer has been modified since the trigram index was last built or updated.
+     * An edit that the buffer ignored, for example because it is read only, does not modify it and
+     * must then not be applied to the index.
+     */
+    private boolean isModifiedSinceTrigramIndex() {
+        return this.buffer.getModificationCount() != this.trigramIndexModCount;
+    }
+
+    /**
+     * Marks the trigram index as up to date after it has been updated for an edit.
+     */
+    private void trigramIndexUpdated() {
+        this.trigramIndexModCount = this.buffer.getModificationCount();
+    }
+
     /**
      * Loads a text file into the buffer.
      *
@@ -121,7 +223,7 @@ public class BufferWrapper {
      * @param lineNo The line to get.
      */
     public Line getLine(int lineNo) {
-        return getLine(new TextPos(lineNo));
+        return new Line(this.buffer.getLine(toIndex(lineNo)));
     }
 
     /**
@@ -133,6 +235,44 @@ public class BufferWrapper {
         return new Line(this.buffer.getLine(lineNo.baseZeroValue()));
     }
 
+    /**
+     * Returns a read only view of a specific line in the buffer. Use this rather than getLine(...)
+     * when the line is only to be looked at since it avoids copying the line into a Line.
+     *
+     * @param lineNo The line to get.
+     */
+    public CharSequence getLineChars(int lineNo) {
+        return this.buffer.getLineChars(toIndex(lineNo));
+    }
+
+    /**
+     * Returns the length of a specific line in the buffer.
+     *
+     * @param lineNo The line to get the length of.
+     */
+    public int getLineLength(int lineNo) {
+        return getLineChars(lineNo).length();
+    }
+
+    /**
+     * Returns true if the specified line is empty or only contains white space.
+     *
+     * @param lineNo The line to check.
+     */
+    public boolean isBlankLine(int lineNo) {
+        return LineSearch.isBlank(getLineChars(lineNo));
+    }
+
+    /**
+     * Converts a base 1 line number to a base 0 TextBuffer index. Just like TextPos
+     * values lower than 1 are treated as 1.
+     *
+     * @param lineNo The line number to convert.
+     */
+    private static int toIndex(int lineNo) {
+        return lineNo < 1 ? 0 : lineNo - 1;
+    }
+
     /**
      * Replaces a specific line in the buffer.
      *
@@ -140,7 +280,12 @@ public class BufferWrapper {
      * @param text The new text for the line.
      */
     public void setLine(int lineNo, String text) {
-        setLine(new TextPos(lineNo), text);
+        TrigramIndex index = getTrigramIndexToUpdate();
+        this.buffer.setLine(toIndex(lineNo), text);
+        if (index != null && isModifiedSinceTrigramIndex()) {
+            index.lineSet(toIndex(lineNo), text);
+            trigramIndexUpdated();
+        }
     }
 
     /**
@@ -150,7 +295,7 @@ public class BufferWrapper {
      * @param text The new text for the line.
      */
     public void setLine(TextPos lineNo, String text) {
-        this.buffer.setLine(lineNo.baseZeroValue(), text);
+        setLine(lineNo.value(), text);
     }
 
     /**
@@ -160,7 +305,7 @@ public class BufferWrapper {
      * @param line The new text for the line.
      */
     public void setLine(TextPos lineNo, Line line) {
-        this.buffer.setLine(lineNo.baseZeroValue(), line.toString());
+        setLine(lineNo.value(), line.toString());
     }
 
     /**
@@ -169,7 +314,12 @@ public class BufferWrapper {
      * @param lineNo The line to remove.
      */
     public void removeLine(int lineNo) {
-        removeLine(new TextPos(lineNo));
+        TrigramIndex index = getTrigramIndexToUpdate();
+        this.buffer.removeLine(toIndex(lineNo));
+        if (index != null && isModifiedSinceTrigramIndex()) {
+            index.lineRemoved(toIndex(lineNo));
+            trigramIndexUpdated();
+        }
     }
 
     /**
@@ -178,7 +328,7 @@ public class BufferWrapper {
      * @param lineNo The line to remove.
      */
     public void removeLine(TextPos lineNo) {
-        this.buffer.removeLine(lineNo.baseZeroValue());
+        removeLine(lineNo.value());
     }
 
     /**
@@ -188,7 +338,12 @@ public class BufferWrapper {
      * @param text The text to insert.
      */
     public void insertLine(int lineNo, String text) {
-        insertLine(new TextPos(lineNo), text);
+        TrigramIndex index = getTrigramIndexToUpdate();
+        this.buffer.insertLine(toIndex(lineNo), text);
+        if (index != null && isModifiedSinceTrigramIndex()) {
+            index.lineInserted(toIndex(lineNo), text);
+            trigramIndexUpdated();
+        }
     }
 
     /**
@@ -198,7 +353,7 @@ public class BufferWrapper {
      * @param text The text to insert.
      */
     public void insertLine(TextPos lineNo, String text) {
-        this.buffer.insertLine(lineNo.baseZeroValue(), text);
+        insertLine(lineNo.value(), text);
     }
 
     /**
@@ -208,7 +363,37 @@ public class BufferWrapper {
      * @param line The line to insert.
      */
     public void insertLine(TextPos lineNo, Line line) {
-        this.buffer.insertLine(lineNo.baseZeroValue(), line.toString());
+        insertLine(lineNo.value(), line.toString());
+    }
+
+    /**
+     * Removes a range of lines.
+     *
+     * @param lineNo The first line to remove.
+     * @param count The number of lines to remove.
+     */
+    public void removeLines(int lineNo, int count) {
+        TrigramIndex index = getTrigramIndexToUpdate();
+        this.buffer.removeLines(toIndex(lineNo), count);
+        if (index != null && isModifiedSinceTrigramIndex()) {
+            index.linesRemoved(toIndex(lineNo), count);
+            trigramIndexUpdated();
+        }
+    }
+
+    /**
+     * Inserts a number of lines at the specified position.
+     *
+     * @param lineNo The position to insert at.
+     * @param lines The lines to insert.
+     */
+    public void insertLines(int lineNo, List<String> lines) {
+        TrigramIndex index = getTrigramIndexToUpdate();
+        this.buffer.insertLines(toIndex(lineNo), lines);
+        if (index != null && isModifiedSinceTrigramIndex()) {
+            index.linesInserted(toIndex(lineNo), lines);
+            trigramIndexUpdated();
+        }
     }
 
     /**
@@ -217,7 +402,12 @@ public class BufferWrapper {
      * @param text The text to add.
      */
     public void addLine(String text) {
+        TrigramIndex index = getTrigramIndexToUpdate();
         this.buffer.addLine(text);
+        if (index != null && isModifiedSinceTrigramIndex()) {
+            index.lineInserted(getSize() - 1, text);
+            trigramIndexUpdated();
+        }
     }
 
     /**
@@ -226,7 +416,7 @@ public class BufferWrapper {
      * @param line The line to add.
      */
     public void addLine(Line line) {
-        this.buffer.addLine(line.toString());
+        addLine(line.toString());
     }
 
     /**
@@ -236,8 +426,18 @@ public class BufferWrapper {
      * @param column The column to verify.
      */
     public boolean columnWithinLimit(TextPos line, TextPos column) {
-        column.adjustLimits(getLastColumnNumber(line).value());
-        return column.wasValid();
+        return columnWithinLimit(line.value(), column.value());
+    }
+
+    /**
+     * Returns true if the specified column on the specified line is within the limit for that line.
+     * An empty line has one valid column.
+     *
+     * @param line The line to check.
+     * @param column The column to verify.
+     */
+    public boolean columnWithinLimit(int line, int column) {
+        return TextPos.isWithinLimit(column, Math.max(getLineLength(line), 1));
     }
 
     /**
@@ -246,7 +446,7 @@ public class BufferWrapper {
      * @param line The line to get the column limit for.
      */
     public int getLastColumn(int line) {
-        return getLine(line).length();
+        return getLineLength(line);
     }
 
     /**
@@ -255,7 +455,7 @@ public class BufferWrapper {
      * @param line The line to get the column limit for.
      */
     public TextPos getLastColumnNumber(TextPos line) {
-        return new TextPos(getLine(line).length());
+        return TextPos.of(getLineLength(line.value()));
     }
 
     /**
@@ -264,8 +464,16 @@ public class BufferWrapper {
      * @param line The line to verify.
      */
     public boolean lineWithinLimit(TextPos line) {
-        line.adjustLimits(getLastLineNumber().value());
-        return line.wasValid();
+        return lineWithinLimit(line.value());
+    }
+
+    /**
+     * Returns true if the specified line is within the limit for this buffer.
+     *
+     * @param line The line to verify.
+     */
+    public boolean lineWithinLimit(int line) {
+        return TextPos.isWithinLimit(line, Math.max(getSize(), 1));
     }
 
     /**
@@ -279,7 +487,7 @@ public class BufferWrapper {
      * Returns the line number limit for the buffer.
      */
     public TextPos getLastLineNumber() {
-        return new TextPos(getSize());
+        return TextPos.of(getSize());
     }
 
     /**
@@ -288,7 +496,7 @@ public class BufferWrapper {
      * @param position The Position object to adjust.
      */
     public void adjustPosition(Position position) {
-        position.adjustLimits(getSize(), getLine(position.getLine()).length());
+        position.adjustLimits(getSize(), getLineLength(position.getLine()));
     }
 
     /**
@@ -0,0 +1,264 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Writes lines of text to a file or any other byte channel.
+ * <p>
+ * Lines are copied into a char buffer that is encoded in large batches with an explicit charset into
+ * a set of direct byte buffers. When all byte buffers are full they are written to the channel with
+ * one gathering write, or one write per buffer if the channel does not support gathering writes. Lines are terminated with the platform line separator, and characters that
+ * cannot be encoded are replaced, just like a PrintWriter does. This produces exactly the same file
+ * as println() on a PrintWriter with the same charset, but without a small encoder flush per line.
+ */
+public class ChannelLineWriter implements Closeable {
+    //
+    // Constants
+    //
+
+    /** The number of byte buffers written by each gathering write. */
+    private static final int BUFFER_COUNT = 4;
+
+    /** The size of each byte buffer. */
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    /** The size of the char buffer that is encoded in one go. */
+    private static final int CHAR_BUFFER_SIZE = 64 * 1024;
+
+    //
+    // Private Members
+    //
+
+    /** The channel to write to. */
+    private WritableByteChannel channel;
+
+    /** The encoder of the charset. */
+    private CharsetEncoder encoder;
+
+    /** The line separator. */
+    private String lineSeparator = System.lineSeparator();
+
+    /** Lines waiting to be encoded. */
+    private CharBuffer chars = CharBuffer.allocate(CHAR_BUFFER_SIZE);
+
+    /** The encoded bytes waiting to be written. */
+    private ByteBuffer[] buffers = new ByteBuffer[BUFFER_COUNT];
+
+    /** The index of the byte buffer currently being encoded into. */
+    private int current = 0;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new ChannelLineWriter writing to the specified file. The file is created or truncated.
+     *
+     * @param file The file to write to.
+     * @param charset The charset to encode the lines with.
+     *
+     * @throws IOException on failure to open the file.
+     */
+    public ChannelLineWriter(File file, Charset charset) throws IOException {
+        this(new FileOutputStream(file).getChannel(), charset);
+    }
+
+    /**
+     * Creates a new ChannelLineWriter writing to the specified channel. The channel is closed by close().
+     *
+     * @param channel The channel to write to.
+     * @param charset The charset to encode the lines with.
+     */
+    public ChannelLineWriter(WritableByteChannel channel, Charset charset) {
+        this.channel = channel;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        for (int i = 0; i < BUFFER_COUNT; i++) {
+            this.buffers[i] = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Writes a line followed by the line separator.
+     *
+     * @param line The line to write.
+     *
+     * @throws IOException on failure to write.
+     */
+    public void writeLine(CharSequence line) throws IOException {
+        append(line);
+        append(this.lineSeparator);
+    }
+
+    /**
+     * Writes a range of bytes of a mapped file as is. This is used to copy unchanged lines
+     * without decoding and encoding them.
+     *
+     * @param source The mapped file to copy from.
+     * @param start The offset of the first byte to copy.
+     * @param end The offset after the last byte to copy.
+     *
+     * @throws IOException on failure to write.
+     */
+    public void copy(MappedFile source, long start, long end) throws IOException {
+        encode(false);
+        writeBuffers();
+        source.writeTo(start, end, this.channel);
+    }
+
+    /**
+     * Copies text into the char buffer, encoding the char buffer whenever it gets full.
+     *
+     * @param text The text to append.
+     *
+     * @throws IOException on failure to write.
+     */
+    private void append(CharSequence text) throws IOException {
+        int pos = 0;
+        int length = text.length();
+        while (pos < length) {
+            int count = Math.min(length - pos, this.chars.remaining());
+            if (text instanceof String) {
+                this.chars.put((String)text, pos, pos + count);
+            }
+            else {
+                this.chars.append(text, pos, pos + count);
+            }
+            pos += count;
+            if (!this.chars.hasRemaining()) {
+                encode(false);
+            }
+        }
+    }
+
+    /**
+     * Encodes the content of the char buffer into the byte buffers.
+     *
+     * @param endOfInput true if there will be no more input.
+     *
+     * @throws IOException on failure to write.
+     */
+    private void encode(boolean endOfInput) throws IOException {
+        this.chars.flip();
+        CoderResult result = this.encoder.encode(this.chars, this.buffers[this.current], endOfInput);
+        while (result.isOverflow()) {
+            nextBuffer();
+            result = this.encoder.encode(this.chars, this.buffers[this.current], endOfInput);
+        }
+        // Any chars left are the first half of a surrogate pair waiting for the rest.
+        this.chars.compact();
+    }
+
+    /**
+     * Moves on to the next byte buffer, writing all byte buffers if all are full.
+     *
+     * @throws IOException on failure to write.
+     */
+    private void nextBuffer() throws IOException {
+        if (this.current < BUFFER_COUNT - 1) {
+            ++this.current;
+        }
+        else {
+            writeBuffers();
+        }
+    }
+
+    /**
+     * Writes all encoded bytes to the channel, with gathering writes if the channel supports them.
+     *
+     * @throws IOException on failure to write.
+     */
+    private void writeBuffers() throws IOException {
+        for (int i = 0; i <= this.current; i++) {
+            this.buffers[i].flip();
+        }
+        if (this.channel instanceof GatheringByteChannel) {
+            ByteBuffer last = this.buffers[this.current];
+            while (last.hasRemaining()) {
+                ((GatheringByteChannel)this.channel).write(this.buffers, 0, this.current + 1);
+            }
+        }
+        else {
+            for (int i = 0; i <= this.current; i++) {
+                while (this.buffers[i].hasRemaining()) {
+                    this.channel.write(this.buffers[i]);
+                }
+            }
+        }
+        for (int i = 0; i <= this.current; i++) {
+            this.buffers[i].clear();
+        }
+        this.current = 0;
+    }
+
+    /**
+     * Encodes and writes everything remaining and closes the channel.
+     *
+     * @throws IOException on failure to write.
+     */
+    public void close() throws IOException {
+        try {
+            encode(true);
+            while (this.encoder.flush(this.buffers[this.current]).isOverflow()) {
+                nextBuffer();
+            }
+            writeBuffers();
+        }
+        finally {
+            this.channel.close();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+/**
+ * A cursor for moving through the buffer one character at a time.
+ * <p>
+ * The current line is kept as a CharSequence and the position as plain ints, so moving the
+ * cursor never allocates anything and never copies a line. A new line is only looked up when
+ * the cursor moves onto it. Lines and columns are base 1 just like in the editor.
+ * <p>
+ * The buffer must not be modified while a cursor is in use.
+ */
+public class CharCursor {
+    //
+    // Constants
+    //
+
+    /** Returned by next() and prev() when there are no more characters. */
+    public static final char END_OF_FILE = Character.MAX_VALUE;
+
+    //
+    // Private Members
+    //
+
+    /** The buffer to move through. */
+    private BufferWrapper buffer;
+
+    /** The current line. */
+    private int line;
+
+    /** The current column. */
+    private int column;
+
+    /** The text of the current line. */
+    private CharSequence chars;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new CharCursor.
+     *
+     * @param buffer The buffer to move through.
+     * @param line The line to start at.
+     * @param column The column to start at.
+     */
+    public CharCursor(BufferWrapper buffer, int line, int column) {
+        this.buffer = buffer;
+        this.line = line;
+        this.column = column;
+        this.chars = buffer.getLineChars(line);
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the current line.
+     */
+    public int getLine() {
+        return this.line;
+    }
+
+    /**
+     * Returns the current column. After right() or left() has returned false this is outside of the line.
+     */
+    public int getColumn() {
+        return this.column;
+    }
+
+    /**
+     * Returns true if the current column is within the current line.
+     */
+    public boolean isWithinLine() {
+        return this.column >= 1 && this.column <= this.chars.length();
+    }
+
+    /**
+     * Returns the character at the current position, or END_OF_FILE if the current column is outside of the line.
+     */
+    public char current() {
+        return isWithinLine() ? this.chars.charAt(this.column - 1) : END_OF_FILE;
+    }
+
+    /**
+     * Moves one column right within the current line. Returns false if that moved outside of the line.
+     */
+    public boolean right() {
+        ++this.column;
+        return isWithinLine();
+    }
+
+    /**
+     * Moves one column left within the current line. Returns false if that moved outside of the line.
+     */
+    public boolean left() {
+        --this.column;
+        return isWithinLine();
+    }
+
+    /**
+     * Moves to the next character and returns it. This continues on the next line that is not empty
+     * at the end of a line. At the end of the buffer the cursor stays at the last character and
+     * END_OF_FILE is returned.
+     */
+    public char next() {
+        if (this.column < this.chars.length()) {
+            ++this.column;
+            return this.chars.charAt(this.column - 1);
+        }
+        int lastLine = this.buffer.getLastLine();
+        for (int lineNo = this.line + 1; lineNo <= lastLine; lineNo++) {
+            CharSequence chars = this.buffer.getLineChars(lineNo);
+            if (chars.length() > 0) {
+                this.line = lineNo;
+                this.chars = chars;
+                this.column = 1;
+                return chars.charAt(0);
+            }
+        }
+        return END_OF_FILE;
+    }
+
+    /**
+     * Moves to the previous character and returns it. This continues at the end of the previous line
+     * that is not empty at the beginning of a line. At the beginning of the buffer the cursor stays at
+     * the first character and END_OF_FILE is returned.
+     */
+    public char prev() {
+        if (this.column > 1 && this.column - 1 <= this.chars.length()) {
+            --this.column;
+            return this.chars.charAt(this.column - 1);
+        }
+        for (int lineNo = this.line - 1; lineNo >= 1; lineNo--) {
+            CharSequence chars = this.buffer.getLineChars(lineNo);
+            if (chars.length() > 0) {
+                this.line = lineNo;
+                this.chars = chars;
+                this.column = chars.length();
+                return chars.charAt(this.column - 1);
+            }
+        }
+        return END_OF_FILE;
+    }
+}
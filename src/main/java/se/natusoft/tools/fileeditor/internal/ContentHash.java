@@ -0,0 +1,239 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import se.natusoft.tools.fileeditor.TextBuffer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+/**
+ * A streaming 64 bit hash of text lines.
+ * <p>
+ * This is the XXH64 algorithm applied to the UTF-16LE encoding of the lines each followed by a
+ * '\n'. Since the chars of the lines are hashed rather than the bytes of a file, the hash of a
+ * buffer does not depend on the charset or line terminators of the file it was loaded from.
+ * The chars of each line are fed one at a time into a small stripe buffer, which is consumed as
+ * soon as it holds a complete 32 byte stripe, so lines never need to be copied into Strings.
+ */
+public class ContentHash {
+    //
+    // Constants
+    //
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    //
+    // Private Members
+    //
+
+    /** The four accumulators, one per 8 bytes of a stripe. */
+    private long v1 = PRIME1 + PRIME2;
+    private long v2 = PRIME2;
+    private long v3 = 0;
+    private long v4 = -PRIME1;
+
+    /** Chars waiting for a complete 32 byte stripe. */
+    private char[] stripe = new char[16];
+
+    /** The number of chars in stripe. */
+    private int stripeSize = 0;
+
+    /** The total number of chars hashed. */
+    private long length = 0;
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the hash of the lines of a buffer.
+     *
+     * @param buffer The buffer to hash.
+     */
+    public static long of(TextBuffer buffer) {
+        ContentHash hash = new ContentHash();
+        int size = buffer.getSize();
+        for (int i = 0; i < size; i++) {
+            hash.updateLine(buffer.getLineChars(i));
+        }
+        return hash.getValue();
+    }
+
+    /**
+     * Returns the hash of the lines of a file. Lines are read the same way as TextFileBuffer reads
+     * them, so this is the same as the hash of a buffer holding the file.
+     *
+     * @param file The file to hash.
+     * @param charset The charset of the file.
+     *
+     * @throws IOException on failure to read the file.
+     */
+    public static long of(File file, Charset charset) throws IOException {
+        ContentHash hash = new ContentHash();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), charset), 65536);
+        try {
+            String line = reader.readLine();
+            while (line != null) {
+                hash.updateLine(line);
+                line = reader.readLine();
+            }
+        }
+        finally {
+            reader.close();
+        }
+        return hash.getValue();
+    }
+
+    /**
+     * Adds a line to the hash.
+     *
+     * @param line The line to add.
+     */
+    public void updateLine(CharSequence line) {
+        int length = line.length();
+        for (int i = 0; i < length; i++) {
+            update(line.charAt(i));
+        }
+        update('\n');
+    }
+
+    /**
+     * Adds a char to the hash.
+     *
+     * @param c The char to add.
+     */
+    private void update(char c) {
+        this.stripe[this.stripeSize++] = c;
+        if (this.stripeSize == 16) {
+            char[] s = this.stripe;
+            this.v1 = round(this.v1, word(s, 0));
+            this.v2 = round(this.v2, word(s, 4));
+            this.v3 = round(this.v3, word(s, 8));
+            this.v4 = round(this.v4, word(s, 12));
+            this.stripeSize = 0;
+        }
+        ++this.length;
+    }
+
+    /**
+     * Returns 4 chars as a little endian 64 bit word.
+     *
+     * @param chars The chars to get from.
+     * @param ix The index of the first char.
+     */
+    private static long word(char[] chars, int ix) {
+        return (long)chars[ix] | (long)chars[ix + 1] << 16 | (long)chars[ix + 2] << 32 | (long)chars[ix + 3] << 48;
+    }
+
+    /**
+     * Mixes an input word into an accumulator.
+     *
+     * @param acc The accumulator.
+     * @param input The input word.
+     */
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    /**
+     * Merges an accumulator into the final hash.
+     *
+     * @param acc The hash being calculated.
+     * @param val The accumulator to merge.
+     */
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * PRIME1 + PRIME4;
+    }
+
+    /**
+     * Returns the hash of everything added so far. More can be added after this.
+     */
+    public long getValue() {
+        long h;
+        long byteLength = this.length * 2;
+        if (byteLength >= 32) {
+            h = Long.rotateLeft(this.v1, 1) + Long.rotateLeft(this.v2, 7) + Long.rotateLeft(this.v3, 12) + Long.rotateLeft(this.v4, 18);
+            h = mergeRound(h, this.v1);
+            h = mergeRound(h, this.v2);
+            h = mergeRound(h, this.v3);
+            h = mergeRound(h, this.v4);
+        }
+        else {
+            h = PRIME5;
+        }
+        h += byteLength;
+
+        int ix = 0;
+        while (ix + 4 <= this.stripeSize) {
+            h ^= round(0, word(this.stripe, ix));
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+            ix += 4;
+        }
+        if (ix + 2 <= this.stripeSize) {
+            h ^= ((long)this.stripe[ix] | (long)this.stripe[ix + 1] << 16) * PRIME1;
+            h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+            ix += 2;
+        }
+        if (ix < this.stripeSize) {
+            char c = this.stripe[ix];
+            h ^= (c & 0xff) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+            h ^= (c >>> 8) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+        }
+
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        return h;
+    }
+}
@@ -0,0 +1,109 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Replaces a file safely by writing the new content to a temporary file in the same directory
+ * which then is renamed over the file. The file is thereby never left half written. This is
+ * needed by buffers that read their content from the file they are saving to.
+ */
+public class FileReplacer {
+    //
+    // Private Members
+    //
+
+    /** The file to replace. */
+    private File file;
+
+    /** The temporary file to write the new content to. */
+    private File tempFile;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new FileReplacer and its temporary file.
+     *
+     * @param file The file to replace.
+     *
+     * @throws IOException on failure to create the temporary file.
+     */
+    public FileReplacer(File file) throws IOException {
+        this.file = file;
+        this.tempFile = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the temporary file to write the new content to.
+     */
+    public File getTempFile() {
+        return this.tempFile;
+    }
+
+    /**
+     * Renames the temporary file over the file, atomically if the file system supports it.
+     *
+     * @throws IOException on failure to rename.
+     */
+    public void replace() throws IOException {
+        try {
+            Files.move(this.tempFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException amnse) {
+            Files.move(this.tempFile.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Deletes the temporary file if it is still there. Call this in a finally block.
+     */
+    public void cleanup() {
+        this.tempFile.delete();
+    }
+}
@@ -0,0 +1,310 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds occurences of a pattern within lines.
+ * <p>
+ * Most searches done with the editor are for plain text, but all searches are specified as
+ * regular expressions. Use forPattern() to get a finder for a pattern. If the pattern does not
+ * contain any regular expression meta characters, or was compiled with Pattern.LITERAL, a
+ * Boyer-Moore-Horspool search is used instead of the regular expression engine. The result is
+ * exactly the same either way.
+ * <p>
+ * A finder keeps state between searches and should thereby not be shared between threads.
+ */
+public abstract class LineFinder {
+    //
+    // Constants
+    //
+
+    /** The characters that have special meaning in a regular expression. */
+    private static final String META_CHARS = "\\^$.|?*+()[]{}";
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns a finder for the specified pattern.
+     *
+     * @param pattern The pattern to get a finder for.
+     */
+    public static LineFinder forPattern(Pattern pattern) {
+        String text = pattern.pattern();
+        if (pattern.flags() == Pattern.LITERAL && text.length() > 0) {
+            return new LiteralFinder(text);
+        }
+        if (pattern.flags() == 0 && isLiteral(text)) {
+            return new LiteralFinder(text);
+        }
+        return new RegexpFinder(pattern);
+    }
+
+    /**
+     * Returns a finder for a plain text. The text is never treated as a regular expression.
+     *
+     * @param text The text to get a finder for. This must not be empty.
+     */
+    public static LineFinder forText(String text) {
+        if (text.length() == 0) {
+            throw new IllegalArgumentException("Cannot search for an empty text!");
+        }
+        return new LiteralFinder(text);
+    }
+
+    /**
+     * Returns true if the specified regular expression only matches itself.
+     *
+     * @param regexp The regular expression to check.
+     */
+    public static boolean isLiteral(String regexp) {
+        if (regexp.length() == 0) {
+            return false;
+        }
+        for (int i = 0; i < regexp.length(); i++) {
+            if (META_CHARS.indexOf(regexp.charAt(i)) >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the base 0 index of the first match at or after fromIndex, or -1 if there is no match.
+     *
+     * @param line The line to search.
+     * @param fromIndex The base 0 index to start searching at.
+     */
+    public abstract int find(CharSequence line, int fromIndex);
+
+    /**
+     * Returns the base 0 index of the last match at or after fromIndex, or -1 if there is no match.
+     * Matches may overlap, so this is the same as the last match that repeated calls to find(...)
+     * with the index after the previous match would return.
+     *
+     * @param line The line to search.
+     * @param fromIndex The base 0 index of the first position a match may start at.
+     */
+    public abstract int findLast(CharSequence line, int fromIndex);
+
+    /**
+     * Returns the base 0 index after the end of the match last returned by find(...) or findLast(...).
+     */
+    public abstract int end();
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * Searches using the regular expression engine.
+     */
+    private static class RegexpFinder extends LineFinder {
+
+        /** The matcher which is reset for each line. */
+        private Matcher matcher;
+
+        /** The end of the match last returned by findLast(...), or -1 after find(...). */
+        private int lastEnd = -1;
+
+        /**
+         * Creates a new RegexpFinder.
+         *
+         * @param pattern The pattern to search for.
+         */
+        private RegexpFinder(Pattern pattern) {
+            this.matcher = pattern.matcher("");
+        }
+
+        /**
+         * Returns the base 0 index of the first match at or after fromIndex, or -1 if there is no match.
+         *
+         * @param line The line to search.
+         * @param fromIndex The base 0 index to start searching at.
+         */
+        public int find(CharSequence line, int fromIndex) {
+            this.lastEnd = -1;
+            this.matcher.reset(line);
+            return this.matcher.find(fromIndex) ? this.matcher.start() : -1;
+        }
+
+        /**
+         * Returns the base 0 index of the last match at or after fromIndex, or -1 if there is no match.
+         * <p>
+         * The regular expression engine can only search forward, so this finds each match in turn.
+         *
+         * @param line The line to search.
+         * @param fromIndex The base 0 index of the first position a match may start at.
+         */
+        public int findLast(CharSequence line, int fromIndex) {
+            this.matcher.reset(line);
+            int last = -1;
+            int end = -1;
+            int ix = fromIndex < 0 ? 0 : fromIndex;
+            while (ix <= line.length() && this.matcher.find(ix)) {
+                last = this.matcher.start();
+                end = this.matcher.end();
+                ix = last + 1;
+            }
+            this.lastEnd = end;
+            return last;
+        }
+
+        /**
+         * Returns the base 0 index after the end of the match last returned by find(...) or findLast(...).
+         */
+        public int end() {
+            return this.lastEnd >= 0 ? this.lastEnd : this.matcher.end();
+        }
+    }
+
+    /**
+     * Searches for a plain text using the Boyer-Moore-Horspool algorithm.
+     * <p>
+     * The skip table is indexed by the low 8 bits of a character. Characters sharing the same low
+     * bits share the smallest skip which is always safe, it just skips a bit less.
+     */
+    private static class LiteralFinder extends LineFinder {
+
+        /** The text to find. */
+        private char[] text;
+
+        /** How far to skip for each character (low 8 bits) at the end of the current window. */
+        private int[] skip = new int[256];
+
+        /** How far to skip backwards for each character (low 8 bits) at the start of the current window. */
+        private int[] reverseSkip = null;
+
+        /** The end of the last match. */
+        private int end = -1;
+
+        /**
+         * Creates a new LiteralFinder.
+         *
+         * @param text The text to search for.
+         */
+        private LiteralFinder(String text) {
+            this.text = text.toCharArray();
+            int last = this.text.length - 1;
+            Arrays.fill(this.skip, this.text.length);
+            for (int i = 0; i < last; i++) {
+                this.skip[this.text[i] & 0xff] = last - i;
+            }
+        }
+
+        /**
+         * Returns the base 0 index of the first match at or after fromIndex, or -1 if there is no match.
+         *
+         * @param line The line to search.
+         * @param fromIndex The base 0 index to start searching at.
+         */
+        public int find(CharSequence line, int fromIndex) {
+            char[] text = this.text;
+            int last = text.length - 1;
+            char lastChar = text[last];
+            int end = line.length() - last;
+            int ix = fromIndex < 0 ? 0 : fromIndex;
+            while (ix < end) {
+                char c = line.charAt(ix + last);
+                if (c == lastChar) {
+                    int i = last - 1;
+                    while (i >= 0 && line.charAt(ix + i) == text[i]) {
+                        --i;
+                    }
+                    if (i < 0) {
+                        this.end = ix + text.length;
+                        return ix;
+                    }
+                }
+                ix += this.skip[c & 0xff];
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the base 0 index of the last match at or after fromIndex, or -1 if there is no match.
+         * <p>
+         * This is the Boyer-Moore-Horspool algorithm mirrored, moving the window from the end of the
+         * line towards its start.
+         *
+         * @param line The line to search.
+         * @param fromIndex The base 0 index of the first position a match may start at.
+         */
+        public int findLast(CharSequence line, int fromIndex) {
+            char[] text = this.text;
+            if (this.reverseSkip == null) {
+                int[] reverseSkip = new int[256];
+                Arrays.fill(reverseSkip, text.length);
+                for (int i = text.length - 1; i > 0; i--) {
+                    reverseSkip[text[i] & 0xff] = i;
+                }
+                this.reverseSkip = reverseSkip;
+            }
+            char firstChar = text[0];
+            int start = fromIndex < 0 ? 0 : fromIndex;
+            int ix = line.length() - text.length;
+            while (ix >= start) {
+                char c = line.charAt(ix);
+                if (c == firstChar) {
+                    int i = 1;
+                    while (i < text.length && line.charAt(ix + i) == text[i]) {
+                        ++i;
+                    }
+                    if (i == text.length) {
+                        this.end = ix + text.length;
+                        return ix;
+                    }
+                }
+                ix -= this.reverseSkip[c & 0xff];
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the base 0 index after the end of the match last returned by find(...) or findLast(...).
+         */
+        public int end() {
+            return this.end;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import java.util.Arrays;
+
+/**
+ * This holds the start offsets of all lines of a file.
+ * <p>
+ * As long as the file is smaller than 2GB the offsets are held in an int[], otherwise in
+ * a long[]. Either way it costs 4 or 8 bytes per line, which is a lot less than a String
+ * per line.
+ * <p>
+ * Please note that line numbers here are base 0 just like in TextBuffer.
+ */
+public class LineIndex {
+
+    //
+    // Private Members
+    //
+
+    /** The line start offsets when the file is smaller than 2GB. */
+    private int[] intStarts = null;
+
+    /** The line start offsets when the file is 2GB or larger. */
+    private long[] longStarts = null;
+
+    /** The number of lines in the index. */
+    private int size = 0;
+
+    /** The offset right after the last byte of the indexed content. */
+    private long end = 0;
+
+    /** The number of lines in the indexed content. This is larger than size for a sparse index. */
+    private int lineCount = 0;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new instance of LineIndex.
+     *
+     * @param end The offset right after the last byte of the content to index.
+     */
+    public LineIndex(long end) {
+        this.end = end;
+        if (end <= Integer.MAX_VALUE) {
+            this.intStarts = new int[1024];
+        }
+        else {
+            this.longStarts = new long[1024];
+        }
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Adds the start offset of the next line.
+     *
+     * @param start The offset to add.
+     */
+    public void add(long start) {
+        if (this.intStarts != null) {
+            if (this.size == this.intStarts.length) {
+                this.intStarts = Arrays.copyOf(this.intStarts, this.size + (this.size >> 1));
+            }
+            this.intStarts[this.size++] = (int)start;
+        }
+        else {
+            if (this.size == this.longStarts.length) {
+                this.longStarts = Arrays.copyOf(this.longStarts, this.size + (this.size >> 1));
+            }
+            this.longStarts[this.size++] = start;
+        }
+    }
+
+    /**
+     * Releases unused index space. Call this when all lines have been added.
+     */
+    public void trim() {
+        if (this.intStarts != null) {
+            this.intStarts = Arrays.copyOf(this.intStarts, this.size);
+        }
+        else {
+            this.longStarts = Arrays.copyOf(this.longStarts, this.size);
+        }
+    }
+
+    /**
+     * Returns the number of lines in the index.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Sets the number of lines in the indexed content.
+     *
+     * @param lineCount The number of lines.
+     */
+    public void setLineCount(int lineCount) {
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * Returns the number of lines in the indexed content. For a full index this is the same as
+     * size(), for a sparse index it is the number of lines the entries are spread over.
+     */
+    public int getLineCount() {
+        return this.lineCount;
+    }
+
+    /**
+     * Returns the start offset of the specified line.
+     *
+     * @param line The line to get the start offset of.
+     */
+    public long start(int line) {
+        if (line < 0 || line >= this.size) {
+            throw new IndexOutOfBoundsException("Line " + line + " is not within 0 - " + (this.size - 1) + "!");
+        }
+        return this.intStarts != null ? this.intStarts[line] : this.longStarts[line];
+    }
+
+    /**
+     * Returns the offset right after the specified line including its line terminator, which is
+     * also the start of the next line.
+     *
+     * @param line The line to get the next offset for.
+     */
+    public long next(int line) {
+        return line + 1 < this.size ? start(line + 1) : this.end;
+    }
+}
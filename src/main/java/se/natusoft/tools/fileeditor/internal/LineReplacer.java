@@ -0,0 +1,119 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+/**
+ * Replaces all occurences of a plain text within lines.
+ * <p>
+ * Each line is scanned once. Nothing is allocated for a line that does not contain the text,
+ * which is the common case, and for a line that does the new line is built in one go rather
+ * than shifting the rest of the line for each replacement. The total number of replacements
+ * made is counted.
+ * <p>
+ * A replacer keeps state between lines and should thereby not be shared between threads.
+ */
+public class LineReplacer {
+    //
+    // Private Members
+    //
+
+    /** Finds the text to replace or null if the text is empty. */
+    private LineFinder finder;
+
+    /** The length of the text to replace. */
+    private int length;
+
+    /** The text to replace with. */
+    private String replaceWith;
+
+    /** The number of replacements made. */
+    private int count = 0;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new LineReplacer. An empty text to replace never matches anything.
+     *
+     * @param toReplace The text to replace.
+     * @param replaceWith The text to replace it with.
+     */
+    public LineReplacer(String toReplace, String replaceWith) {
+        this.finder = toReplace.length() > 0 ? LineFinder.forText(toReplace) : null;
+        this.length = toReplace.length();
+        this.replaceWith = replaceWith;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Replaces all occurences of the text in a line. Returns the new line, or null if the line does not
+     * contain the text.
+     *
+     * @param line The line to replace in.
+     */
+    public String replace(CharSequence line) {
+        if (this.finder == null) {
+            return null;
+        }
+        int ix = this.finder.find(line, 0);
+        if (ix < 0) {
+            return null;
+        }
+        StringBuilder result = new StringBuilder(line.length() + Math.max(0, this.replaceWith.length() - this.length) * 4);
+        int prev = 0;
+        while (ix >= 0) {
+            result.append(line, prev, ix).append(this.replaceWith);
+            ++this.count;
+            prev = ix + this.length;
+            ix = this.finder.find(line, prev);
+        }
+        result.append(line, prev, line.length());
+        return result.toString();
+    }
+
+    /**
+     * Returns the total number of replacements made.
+     */
+    public int getCount() {
+        return this.count;
+    }
+}
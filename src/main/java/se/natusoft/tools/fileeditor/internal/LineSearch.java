@@ -0,0 +1,135 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Provides searching within a line of text.
+ * <p>
+ * These work on any CharSequence so that the editor can search the lines of a buffer
+ * without first copying them into a Line. Please note that indexes here are base 0!
+ */
+public class LineSearch {
+    //
+    // Constants
+    //
+
+    /** Returned by find() when the 'endAt' expression matched the line. */
+    public static final int END_AT = Integer.MAX_VALUE;
+
+    //
+    // Methods
+    //
+
+    /**
+     * Finds a regexp in the line starting at the specified index.
+     * <p>
+     * Returns the index of the match, END_AT if no match was found but the line matches
+     * 'endAt', or -1 otherwise.
+     *
+     * @param line The line to search.
+     * @param regexp The regular expression to search for.
+     * @param fromIndex The base 0 index to start searching at.
+     * @param endAt If not null a regexp that ends searching.
+     */
+    public static int find(CharSequence line, String regexp, int fromIndex, String endAt) {
+        Pattern endAtPattern = PatternCache.getOrNull(endAt);
+        return find(line, LineFinder.forPattern(PatternCache.get(regexp)), fromIndex, endAtPattern != null ? endAtPattern.matcher(line) : null);
+    }
+
+    /**
+     * Finds a pattern in the line starting at the specified index.
+     * <p>
+     * The same finder and 'endAt' matcher can be reused for every line searched.
+     * <p>
+     * Returns the index of the match, END_AT if no match was found but the line matches
+     * 'endAt', or -1 otherwise.
+     *
+     * @param line The line to search.
+     * @param finder A finder of the pattern to search for.
+     * @param fromIndex The base 0 index to start searching at.
+     * @param endAt If not null a matcher of a pattern that ends searching.
+     */
+    public static int find(CharSequence line, LineFinder finder, int fromIndex, Matcher endAt) {
+        int result = -1;
+
+        int length = line.length();
+        if (length != 0) {
+            if (fromIndex >= length) {
+                fromIndex = length - 1;
+            }
+            result = finder.find(line, fromIndex);
+            if (result < 0 && endAt != null && endAt.reset(line).matches()) {
+                result = END_AT;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds the last match of a pattern in the line that starts at or after the specified index.
+     * The end of the match is available from end() of the finder.
+     * <p>
+     * Returns the index of the match or -1 if there is no match. Just like find(...) an empty line
+     * never matches.
+     *
+     * @param line The line to search.
+     * @param finder A finder of the pattern to search for.
+     * @param fromIndex The base 0 index of the first position a match may start at.
+     */
+    public static int findLast(CharSequence line, LineFinder finder, int fromIndex) {
+        return line.length() != 0 ? finder.findLast(line, fromIndex) : -1;
+    }
+
+    /**
+     * Returns true if the line is empty or only contains white space.
+     *
+     * @param line The line to check.
+     */
+    public static boolean isBlank(CharSequence line) {
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
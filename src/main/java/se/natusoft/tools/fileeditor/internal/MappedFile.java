@@ -0,0 +1,308 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This is a read only memory mapping of a file.
+ * <p>
+ * A single MappedByteBuffer cannot be larger than 2GB so the file is mapped in segments
+ * of 1GB. Reads crossing a segment boundary are handled transparently.
+ * <p>
+ * Line terminators are handled exactly like BufferedReader.readLine() handles them, that is
+ * "\n", "\r", and "\r\n" all terminate a line. This also means that only charsets where
+ * these characters are encoded as single bytes with their ASCII values can be used. See
+ * isAsciiCompatible(Charset).
+ */
+public class MappedFile {
+    //
+    // Constants
+    //
+
+    /** The size of each mapped segment. */
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    //
+    // Private Members
+    //
+
+    /** The mapped file. */
+    private File file = null;
+
+    /** The size of the mapped file. */
+    private long size = 0;
+
+    /** The mapped segments of the file. */
+    private MappedByteBuffer[] segments = null;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new instance of MappedFile.
+     *
+     * @param file The file to map.
+     *
+     * @throws IOException on failure to open or map the file.
+     */
+    public MappedFile(File file) throws IOException {
+        this.file = file;
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            this.size = channel.size();
+            int noSegments = (int)((this.size + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            this.segments = new MappedByteBuffer[noSegments];
+            for (int i = 0; i < noSegments; i++) {
+                long start = i * SEGMENT_SIZE;
+                this.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, this.size - start));
+            }
+        }
+        finally {
+            // The mapping stays valid after the channel is closed.
+            raf.close();
+        }
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the mapped file.
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns the size of the mapped file.
+     */
+    public long size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the byte at the specified offset.
+     *
+     * @param offset The offset of the byte to get.
+     */
+    public byte get(long offset) {
+        return this.segments[(int)(offset / SEGMENT_SIZE)].get((int)(offset % SEGMENT_SIZE));
+    }
+
+    /**
+     * Copies bytes from the file into the specified array.
+     *
+     * @param offset The file offset to start copying at.
+     * @param dst The array to copy to.
+     * @param off The offset in the array to copy to.
+     * @param len The number of bytes to copy.
+     */
+    public void get(long offset, byte[] dst, int off, int len) {
+        while (len > 0) {
+            ByteBuffer segment = this.segments[(int)(offset / SEGMENT_SIZE)].duplicate();
+            segment.position((int)(offset % SEGMENT_SIZE));
+            int count = Math.min(len, segment.remaining());
+            segment.get(dst, off, count);
+            offset += count;
+            off += count;
+            len -= count;
+        }
+    }
+
+    /**
+     * Writes the bytes between start and end directly from the mapped memory to a channel.
+     *
+     * @param start The offset of the first byte to write.
+     * @param end The offset after the last byte to write.
+     * @param target The channel to write to.
+     *
+     * @throws IOException on failure to write.
+     */
+    public void writeTo(long start, long end, WritableByteChannel target) throws IOException {
+        while (start < end) {
+            ByteBuffer segment = this.segments[(int)(start / SEGMENT_SIZE)].duplicate();
+            segment.position((int)(start % SEGMENT_SIZE));
+            if (end - start < segment.remaining()) {
+                segment.limit(segment.position() + (int)(end - start));
+            }
+            start += segment.remaining();
+            while (segment.hasRemaining()) {
+                target.write(segment);
+            }
+        }
+    }
+
+    /**
+     * Decodes the bytes between start and end into a String.
+     *
+     * @param start The offset of the first byte to decode.
+     * @param end The offset after the last byte to decode.
+     * @param charset The charset to decode with.
+     */
+    public String decode(long start, long end, Charset charset) {
+        byte[] bytes = new byte[(int)(end - start)];
+        get(start, bytes, 0, bytes.length);
+        return new String(bytes, charset);
+    }
+
+    /**
+     * Returns the end of the line content for a line, that is the offset of its line terminator.
+     *
+     * @param start The start offset of the line.
+     * @param next The start offset of the next line or the size of the file for the last line.
+     */
+    public long contentEnd(long start, long next) {
+        if (next > start && get(next - 1) == '\n') {
+            --next;
+        }
+        if (next > start && get(next - 1) == '\r') {
+            --next;
+        }
+        return next;
+    }
+
+    /**
+     * Scans the whole file and returns an index of the start offset of each line.
+     */
+    public LineIndex indexLines() {
+        return indexLines(1);
+    }
+
+    /**
+     * Scans the whole file and returns a sparse index holding the start offset of every n:th
+     * line, that is of line 0, n, 2n, and so on. The total number of lines is available from
+     * getLineCount() of the index.
+     *
+     * @param every The number of lines per index entry.
+     */
+    public LineIndex indexLines(int every) {
+        LineIndex index = new LineIndex(this.size);
+        int lines = 0;
+        if (this.size > 0) {
+            index.add(0);
+            lines = 1;
+        }
+
+        long pos = 0;
+        for (int s = 0; s < this.segments.length; s++) {
+            MappedByteBuffer segment = this.segments[s];
+            long base = s * SEGMENT_SIZE;
+            int limit = segment.limit();
+            for (int i = (int)Math.max(0, pos - base); i < limit; i++) {
+                byte b = segment.get(i);
+                if (b == '\n' || b == '\r') {
+                    long next = base + i + 1;
+                    if (b == '\r' && next < this.size && get(next) == '\n') {
+                        ++next;
+                        ++i;
+                    }
+                    if (next < this.size) {
+                        if (lines % every == 0) {
+                            index.add(next);
+                        }
+                        ++lines;
+                    }
+                    pos = next;
+                }
+            }
+        }
+        index.trim();
+        index.setLineCount(lines);
+
+        return index;
+    }
+
+    /**
+     * Decodes the bytes between start and end and splits them into lines. Lines are split
+     * the same way as indexLines() splits them.
+     *
+     * @param start The offset of the first byte to decode. This must be the start of a line.
+     * @param end The offset after the last byte to decode. This must be the start of a line or the size of the file.
+     * @param charset The charset to decode with.
+     */
+    public List<String> decodeLines(long start, long end, Charset charset) {
+        byte[] bytes = new byte[(int)(end - start)];
+        get(start, bytes, 0, bytes.length);
+
+        List<String> lines = new ArrayList<String>();
+        int lineStart = 0;
+        int ix = 0;
+        while (ix < bytes.length) {
+            byte b = bytes[ix];
+            if (b == '\n' || b == '\r') {
+                lines.add(new String(bytes, lineStart, ix - lineStart, charset));
+                ++ix;
+                if (b == '\r' && ix < bytes.length && bytes[ix] == '\n') {
+                    ++ix;
+                }
+                lineStart = ix;
+            }
+            else {
+                ++ix;
+            }
+        }
+        if (lineStart < bytes.length) {
+            lines.add(new String(bytes, lineStart, bytes.length - lineStart, charset));
+        }
+        return lines;
+    }
+
+    /**
+     * Returns true if the specified charset encodes '\n' and '\r' as their single byte ASCII values
+     * and thereby can be split into lines without decoding.
+     *
+     * @param charset The charset to check.
+     */
+    public static boolean isAsciiCompatible(Charset charset) {
+        return charset.canEncode() && Arrays.equals("\n\r".getBytes(charset), new byte[] {'\n', '\r'});
+    }
+}
@@ -0,0 +1,143 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces several plain texts within lines in one pass.
+ * <p>
+ * All texts are found with one Aho-Corasick automaton. Where texts overlap the leftmost one
+ * wins, and of those starting at the same position the longest one wins. Replaced text is never
+ * searched again. Like LineReplacer nothing is allocated for a line without any of the texts,
+ * and the number of replacements made is counted per text.
+ * <p>
+ * A replacer keeps state between lines and should thereby not be shared between threads.
+ */
+public class MultiReplacer {
+    //
+    // Private Members
+    //
+
+    /** The texts to replace. */
+    private List<String> texts;
+
+    /** The texts to replace them with. */
+    private List<String> replacements;
+
+    /** Finds the texts. */
+    private AhoCorasick automaton;
+
+    /** The number of replacements made per text. */
+    private int[] counts;
+
+    /** The line currently being replaced. */
+    private CharSequence line;
+
+    /** The new line being built or null if nothing has been replaced in the current line. */
+    private StringBuilder result;
+
+    /** The end of the part of the current line that has been handled. */
+    private int prev;
+
+    /** Receives the occurences in the current line. */
+    private AhoCorasick.Listener listener = new AhoCorasick.Listener() {
+        public void found(int text, int start) {
+            if (result == null) {
+                result = new StringBuilder(line.length() + 16);
+            }
+            result.append(line, prev, start).append(replacements.get(text));
+            prev = start + texts.get(text).length();
+            ++counts[text];
+        }
+    };
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new MultiReplacer. Empty texts never match anything.
+     *
+     * @param replacements The texts to replace mapped to the texts to replace them with.
+     */
+    public MultiReplacer(Map<String, String> replacements) {
+        this.texts = new ArrayList<String>(replacements.keySet());
+        this.replacements = new ArrayList<String>(replacements.values());
+        this.automaton = new AhoCorasick(this.texts);
+        this.counts = new int[this.texts.size()];
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Replaces all occurences of all texts in a line. Returns the new line, or null if the line does
+     * not contain any of the texts.
+     *
+     * @param line The line to replace in.
+     */
+    public String replace(CharSequence line) {
+        this.line = line;
+        this.result = null;
+        this.prev = 0;
+        this.automaton.searchLeftmostLongest(line, this.listener);
+        if (this.result == null) {
+            return null;
+        }
+        this.result.append(line, this.prev, line.length());
+        this.line = null;
+        return this.result.toString();
+    }
+
+    /**
+     * Returns the number of replacements made per text, in the order of the map the replacer was
+     * created with.
+     */
+    public Map<String, Integer> getCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < this.texts.size(); i++) {
+            counts.put(this.texts.get(i), this.counts[i]);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,209 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import se.natusoft.tools.fileeditor.Occurence;
+import se.natusoft.tools.fileeditor.Position;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Lazily finds occurences in a range of lines, one at a time, as a Spliterator for streams.
+ * <p>
+ * Nothing is searched until an occurence is asked for, and searching stops as soon as the
+ * consumer of the stream stops asking. The range can be split in halves so that a parallel
+ * stream searches the halves on different threads, in which case each half uses its own finder
+ * or matcher. The occurences are the same as the corresponding findAll...() methods of the editor
+ * return, in the same order.
+ * <p>
+ * The buffer is only read, and it must not be modified while the stream is in use.
+ */
+public class OccurenceSpliterator implements Spliterator<Occurence> {
+    //
+    // Constants
+    //
+
+    /** Ranges with fewer lines than this are not split. */
+    private static final int MIN_SPLIT_LINES = 1024;
+
+    //
+    // Private Members
+    //
+
+    /** The buffer to search. */
+    private BufferWrapper buffer;
+
+    /** The pattern to search for or null to find blank lines. */
+    private Pattern pattern;
+
+    /** If true whole lines are matched, otherwise all occurences within lines are found. */
+    private boolean wholeLines;
+
+    /** The next line to search. */
+    private int lineNo;
+
+    /** The line after the last line to search. */
+    private int toLine;
+
+    /** The base 0 index in the current line to continue searching for occurences at. */
+    private int fromIndex = 0;
+
+    /** Finds occurences within lines. Created when first needed. */
+    private LineFinder finder = null;
+
+    /** Matches whole lines. Created when first needed. */
+    private Matcher matcher = null;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new OccurenceSpliterator.
+     *
+     * @param buffer The buffer to search.
+     * @param pattern The pattern to search for, or null to find blank lines.
+     * @param wholeLines If true the pattern must match whole lines and each matching line is an occurence. If false
+     *                   every occurence of the pattern within the lines is found. Ignored if pattern is null.
+     * @param fromLine The first line to search.
+     * @param toLine The line after the last line to search.
+     */
+    public OccurenceSpliterator(BufferWrapper buffer, Pattern pattern, boolean wholeLines, int fromLine, int toLine) {
+        this.buffer = buffer;
+        this.pattern = pattern;
+        this.wholeLines = wholeLines;
+        this.lineNo = fromLine;
+        this.toLine = toLine;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Finds the next occurence and passes it to the action. Returns false if there are no more occurences.
+     *
+     * @param action The action to pass the occurence to.
+     */
+    public boolean tryAdvance(Consumer<? super Occurence> action) {
+        if (this.pattern != null && !this.wholeLines) {
+            return findNextOccurence(action);
+        }
+        if (this.pattern != null && this.matcher == null) {
+            this.matcher = this.pattern.matcher("");
+        }
+        while (this.lineNo < this.toLine) {
+            int lineNo = this.lineNo++;
+            CharSequence line = this.buffer.getLineChars(lineNo);
+            if (this.pattern != null ? this.matcher.reset(line).matches() : LineSearch.isBlank(line)) {
+                action.accept(new Occurence(new Position(1, lineNo), this.buffer.getOriginalBuffer()));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the next occurence of the pattern within the lines. A new match is looked for from the
+     * column after the previous match the same way findNext() does in the editor.
+     *
+     * @param action The action to pass the occurence to.
+     */
+    private boolean findNextOccurence(Consumer<? super Occurence> action) {
+        if (this.finder == null) {
+            this.finder = LineFinder.forPattern(this.pattern);
+        }
+        while (this.lineNo < this.toLine) {
+            CharSequence line = this.buffer.getLineChars(this.lineNo);
+            int ix = LineSearch.find(line, this.finder, this.fromIndex, null);
+            if (ix >= 0) {
+                int lineNo = this.lineNo;
+                if (ix + 1 < line.length()) {
+                    this.fromIndex = ix + 1;
+                }
+                else {
+                    ++this.lineNo;
+                    this.fromIndex = 0;
+                }
+                action.accept(new Occurence(new Position(ix + 1, lineNo), this.buffer.getOriginalBuffer()));
+                return true;
+            }
+            ++this.lineNo;
+            this.fromIndex = 0;
+        }
+        return false;
+    }
+
+    /**
+     * Splits off the first half of the remaining lines, or returns null if too few lines remain.
+     */
+    public Spliterator<Occurence> trySplit() {
+        // Only split between lines.
+        int from = this.fromIndex > 0 ? this.lineNo + 1 : this.lineNo;
+        if (this.toLine - from < MIN_SPLIT_LINES * 2) {
+            return null;
+        }
+        int middle = from + (this.toLine - from) / 2;
+        OccurenceSpliterator first = new OccurenceSpliterator(this.buffer, this.pattern, this.wholeLines, this.lineNo, middle);
+        first.fromIndex = this.fromIndex;
+        first.finder = this.finder;
+        first.matcher = this.matcher;
+        this.lineNo = middle;
+        this.fromIndex = 0;
+        this.finder = null;
+        this.matcher = null;
+        return first;
+    }
+
+    /**
+     * Returns the number of remaining lines since the number of occurences is not known in advance.
+     */
+    public long estimateSize() {
+        return this.toLine - this.lineNo;
+    }
+
+    /**
+     * Returns the characteristics of the occurences.
+     */
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
@@ -0,0 +1,200 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Loads the lines of a file using all cores.
+ * <p>
+ * The file is memory mapped and split into chunks that each end right after a line terminator. The chunks are
+ * decoded and split into lines in parallel on the common ForkJoinPool, after which the lines of the
+ * chunks are concatenated in order. Lines are split exactly like BufferedReader.readLine() splits
+ * them.
+ * <p>
+ * Since chunks are split on bytes only charsets accepted by MappedFile.isAsciiCompatible() can be used.
+ */
+public class ParallelLineLoader extends RecursiveAction {
+    //
+    // Constants
+    //
+
+    /** The serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /** The default chunk size. */
+    public static final int CHUNK_SIZE = 8 * 1024 * 1024;
+
+    //
+    // Private Members
+    //
+
+    /** The file to load. */
+    private MappedFile file;
+
+    /** The charset of the file. */
+    private Charset charset;
+
+    /** The start offset of each chunk followed by the size of the file. */
+    private long[] chunks;
+
+    /** The lines of each chunk. */
+    private List<List<String>> results;
+
+    /** The first chunk to load. */
+    private int fromChunk;
+
+    /** The chunk after the last chunk to load. */
+    private int toChunk;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new ParallelLineLoader.
+     *
+     * @param file The file to load.
+     * @param charset The charset of the file.
+     * @param chunks The start offset of each chunk followed by the size of the file.
+     * @param results Receives the lines of each chunk.
+     * @param fromChunk The first chunk to load.
+     * @param toChunk The chunk after the last chunk to load.
+     */
+    private ParallelLineLoader(MappedFile file, Charset charset, long[] chunks, List<List<String>> results, int fromChunk, int toChunk) {
+        this.file = file;
+        this.charset = charset;
+        this.chunks = chunks;
+        this.results = results;
+        this.fromChunk = fromChunk;
+        this.toChunk = toChunk;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Loads the lines of a file using the default chunk size.
+     *
+     * @param file The file to load.
+     * @param charset The charset of the file.
+     *
+     * @throws IOException on failure to read the file.
+     */
+    public static ArrayList<String> load(File file, Charset charset) throws IOException {
+        return load(file, charset, CHUNK_SIZE);
+    }
+
+    /**
+     * Loads the lines of a file.
+     *
+     * @param file The file to load.
+     * @param charset The charset of the file.
+     * @param chunkSize The approximate number of bytes decoded by each task.
+     *
+     * @throws IOException on failure to read the file.
+     */
+    public static ArrayList<String> load(File file, Charset charset, int chunkSize) throws IOException {
+        MappedFile mappedFile = new MappedFile(file);
+        long size = mappedFile.size();
+
+        List<Long> starts = new ArrayList<Long>();
+        long start = 0;
+        while (start < size) {
+            starts.add(start);
+            long end = start + chunkSize;
+            while (end < size && !isChunkEnd(mappedFile, end)) {
+                ++end;
+            }
+            start = end;
+        }
+        long[] chunks = new long[starts.size() + 1];
+        for (int i = 0; i < starts.size(); i++) {
+            chunks[i] = starts.get(i);
+        }
+        chunks[starts.size()] = size;
+
+        List<List<String>> results = new ArrayList<List<String>>(Collections.<List<String>>nCopies(starts.size(), null));
+        ForkJoinPool.commonPool().invoke(new ParallelLineLoader(mappedFile, charset, chunks, results, 0, results.size()));
+
+        int lines = 0;
+        for (List<String> result : results) {
+            lines += result.size();
+        }
+        ArrayList<String> text = new ArrayList<String>(lines);
+        for (List<String> result : results) {
+            text.addAll(result);
+        }
+        return text;
+    }
+
+    /**
+     * Returns true if a chunk can end at the specified offset, that is if the byte before it ends a line.
+     * A '\r' only ends a line if it is not followed by a '\n'.
+     *
+     * @param file The file to check.
+     * @param offset The offset after the last byte of the chunk. This must be less than the size of the file.
+     */
+    private static boolean isChunkEnd(MappedFile file, long offset) {
+        byte b = file.get(offset - 1);
+        return b == '\n' || (b == '\r' && file.get(offset) != '\n');
+    }
+
+    /**
+     * Loads the chunks, splitting the range of chunks in two if it has more than one chunk.
+     */
+    @Override
+    protected void compute() {
+        if (this.toChunk - this.fromChunk == 1) {
+            this.results.set(this.fromChunk, this.file.decodeLines(this.chunks[this.fromChunk], this.chunks[this.fromChunk + 1], this.charset));
+        }
+        else if (this.toChunk > this.fromChunk) {
+            int middle = this.fromChunk + (this.toChunk - this.fromChunk) / 2;
+            invokeAll(new ParallelLineLoader(this.file, this.charset, this.chunks, this.results, this.fromChunk, middle),
+                    new ParallelLineLoader(this.file, this.charset, this.chunks, this.results, middle, this.toChunk));
+        }
+    }
+}
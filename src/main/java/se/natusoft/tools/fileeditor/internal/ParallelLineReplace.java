@@ -0,0 +1,170 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Pattern;
+
+/**
+ * Replaces all matches of a pattern in a range of lines by splitting it into chunks that are
+ * processed in parallel on a ForkJoinPool.
+ * <p>
+ * Buffers are not thread safe for writing, so the chunks only read the buffer and collect the
+ * new text of the changed lines. The changes are then written to the buffer by apply() on the
+ * calling thread. The buffer must not be modified while the task is running.
+ */
+public class ParallelLineReplace extends RecursiveTask<ParallelLineReplace.Changes> {
+    //
+    // Constants
+    //
+
+    /** The serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /** Ranges with at most this many lines are processed sequentially. */
+    private static final int CHUNK_LINES = 4096;
+
+    //
+    // Private Members
+    //
+
+    /** The buffer to replace in. */
+    private BufferWrapper buffer;
+
+    /** The pattern to replace matches of. */
+    private Pattern pattern;
+
+    /** The replacement which can refer to groups of the match. */
+    private String replacement;
+
+    /** The first line to process. */
+    private int fromLine;
+
+    /** The line after the last line to process. */
+    private int toLine;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new ParallelLineReplace.
+     *
+     * @param buffer The buffer to replace in.
+     * @param pattern The pattern to replace matches of.
+     * @param replacement The replacement which can refer to groups of the match.
+     * @param fromLine The first line to process.
+     * @param toLine The line after the last line to process.
+     */
+    public ParallelLineReplace(BufferWrapper buffer, Pattern pattern, String replacement, int fromLine, int toLine) {
+        this.buffer = buffer;
+        this.pattern = pattern;
+        this.replacement = replacement;
+        this.fromLine = fromLine;
+        this.toLine = toLine;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Processes the lines, splitting the range in two if it is larger than a chunk.
+     */
+    @Override
+    protected Changes compute() {
+        if (this.toLine - this.fromLine <= CHUNK_LINES) {
+            Changes changes = new Changes();
+            RegexpReplacer replacer = new RegexpReplacer(this.pattern, this.replacement);
+            for (int lineNo = this.fromLine; lineNo < this.toLine; lineNo++) {
+                String replaced = replacer.replace(this.buffer.getLineChars(lineNo));
+                if (replaced != null) {
+                    changes.lines.add(lineNo);
+                    changes.texts.add(replaced);
+                }
+            }
+            changes.count = replacer.getCount();
+            return changes;
+        }
+
+        int middle = this.fromLine + (this.toLine - this.fromLine) / 2;
+        ParallelLineReplace first = new ParallelLineReplace(this.buffer, this.pattern, this.replacement, this.fromLine, middle);
+        ParallelLineReplace second = new ParallelLineReplace(this.buffer, this.pattern, this.replacement, middle, this.toLine);
+        first.fork();
+        Changes secondResult = second.compute();
+        Changes result = first.join();
+        result.lines.addAll(secondResult.lines);
+        result.texts.addAll(secondResult.texts);
+        result.count += secondResult.count;
+        return result;
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * The changed lines of a range.
+     */
+    public static class Changes {
+        /** The numbers of the changed lines. */
+        private List<Integer> lines = new ArrayList<Integer>();
+
+        /** The new text of each changed line. */
+        private List<String> texts = new ArrayList<String>();
+
+        /** The number of replacements made. */
+        private int count = 0;
+
+        /**
+         * Writes the changed lines to the buffer.
+         *
+         * @param buffer The buffer to write to.
+         *
+         * @return The number of replacements made.
+         */
+        public int apply(BufferWrapper buffer) {
+            for (int i = 0; i < this.lines.size(); i++) {
+                buffer.setLine(this.lines.get(i), this.texts.get(i));
+            }
+            return this.count;
+        }
+    }
+}
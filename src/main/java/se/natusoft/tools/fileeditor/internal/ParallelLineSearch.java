@@ -0,0 +1,166 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import se.natusoft.tools.fileeditor.Occurence;
+import se.natusoft.tools.fileeditor.Position;
+import se.natusoft.tools.fileeditor.TextBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Searches a range of lines by splitting it into chunks that are searched in parallel on a
+ * ForkJoinPool. The results of the chunks are merged in line order, so the result is the
+ * same as a sequential search.
+ * <p>
+ * The buffer is only read, and it must not be modified while the search is running. Each
+ * chunk uses its own finder or matcher since those are not thread safe.
+ */
+public class ParallelLineSearch extends RecursiveTask<List<Occurence>> {
+    //
+    // Constants
+    //
+
+    /** The serialization version. */
+    private static final long serialVersionUID = 1L;
+
+    /** Ranges with at most this many lines are searched sequentially. */
+    private static final int CHUNK_LINES = 4096;
+
+    //
+    // Private Members
+    //
+
+    /** The buffer to search. */
+    private BufferWrapper buffer;
+
+    /** The pattern to search for. */
+    private Pattern pattern;
+
+    /** If true whole lines are matched, otherwise all occurences within lines are found. */
+    private boolean wholeLines;
+
+    /** The first line to search. */
+    private int fromLine;
+
+    /** The line after the last line to search. */
+    private int toLine;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new ParallelLineSearch.
+     *
+     * @param buffer The buffer to search.
+     * @param pattern The pattern to search for.
+     * @param wholeLines If true the pattern must match whole lines and each matching line is an occurence. If false
+     *                   every occurence of the pattern within the lines is found.
+     * @param fromLine The first line to search.
+     * @param toLine The line after the last line to search.
+     */
+    public ParallelLineSearch(BufferWrapper buffer, Pattern pattern, boolean wholeLines, int fromLine, int toLine) {
+        this.buffer = buffer;
+        this.pattern = pattern;
+        this.wholeLines = wholeLines;
+        this.fromLine = fromLine;
+        this.toLine = toLine;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Searches the lines, splitting the range in two if it is larger than a chunk.
+     */
+    @Override
+    protected List<Occurence> compute() {
+        if (this.toLine - this.fromLine <= CHUNK_LINES) {
+            return this.wholeLines ? matchLines() : findOccurences();
+        }
+
+        int middle = this.fromLine + (this.toLine - this.fromLine) / 2;
+        ParallelLineSearch first = new ParallelLineSearch(this.buffer, this.pattern, this.wholeLines, this.fromLine, middle);
+        ParallelLineSearch second = new ParallelLineSearch(this.buffer, this.pattern, this.wholeLines, middle, this.toLine);
+        first.fork();
+        List<Occurence> secondResult = second.compute();
+        List<Occurence> result = first.join();
+        result.addAll(secondResult);
+        return result;
+    }
+
+    /**
+     * Returns an occurence for each line in the range that the pattern matches.
+     */
+    private List<Occurence> matchLines() {
+        List<Occurence> occurences = new ArrayList<Occurence>();
+        TextBuffer originalBuffer = this.buffer.getOriginalBuffer();
+        Matcher matcher = this.pattern.matcher("");
+        for (int lineNo = this.fromLine; lineNo < this.toLine; lineNo++) {
+            if (matcher.reset(this.buffer.getLineChars(lineNo)).matches()) {
+                occurences.add(new Occurence(new Position(1, lineNo), originalBuffer));
+            }
+        }
+        return occurences;
+    }
+
+    /**
+     * Returns an occurence for each match of the pattern in the range. A new match is looked for
+     * from the column after the previous match the same way findNext() does in the editor.
+     */
+    private List<Occurence> findOccurences() {
+        List<Occurence> occurences = new ArrayList<Occurence>();
+        TextBuffer originalBuffer = this.buffer.getOriginalBuffer();
+        LineFinder finder = LineFinder.forPattern(this.pattern);
+        for (int lineNo = this.fromLine; lineNo < this.toLine; lineNo++) {
+            CharSequence line = this.buffer.getLineChars(lineNo);
+            int ix = LineSearch.find(line, finder, 0, null);
+            while (ix >= 0) {
+                occurences.add(new Occurence(new Position(ix + 1, lineNo), originalBuffer));
+                ix = ix + 1 < line.length() ? LineSearch.find(line, finder, ix + 1, null) : -1;
+            }
+        }
+        return occurences;
+    }
+}
@@ -0,0 +1,100 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A bounded cache of compiled regular expressions.
+ * <p>
+ * The editor takes regular expressions as strings, and the same expression is very often used
+ * over and over again, for every line searched and for every call. Compiling a Pattern is
+ * expensive, so compiled patterns are kept here. When the cache is full the least recently
+ * used pattern is dropped. This is thread safe.
+ */
+public class PatternCache {
+    //
+    // Constants
+    //
+
+    /** The max number of cached patterns. */
+    private static final int MAX_SIZE = 256;
+
+    //
+    // Private Members
+    //
+
+    /** The cached patterns in least recently used order. */
+    private static final Map<String, Pattern> patterns = new LinkedHashMap<String, Pattern>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    //
+    // Methods
+    //
+
+    /**
+     * Returns the compiled pattern for a regular expression, compiling it if it is not cached.
+     *
+     * @param regexp The regular expression to get the pattern for.
+     */
+    public static Pattern get(String regexp) {
+        synchronized (patterns) {
+            Pattern pattern = patterns.get(regexp);
+            if (pattern == null) {
+                pattern = Pattern.compile(regexp);
+                patterns.put(regexp, pattern);
+            }
+            return pattern;
+        }
+    }
+
+    /**
+     * Returns the compiled pattern for a regular expression, or null if the regular expression is null.
+     *
+     * @param regexp The regular expression to get the pattern for or null.
+     */
+    public static Pattern getOrNull(String regexp) {
+        return regexp != null ? get(regexp) : null;
+    }
+}
@@ -0,0 +1,115 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Replaces all matches of a pattern within lines. The replacement can refer to groups of the
+ * match with $1 or ${name} exactly like Matcher.replaceAll() does.
+ * <p>
+ * The same Matcher and StringBuilder are reused for every line, and nothing is allocated for a
+ * line without a match. The total number of replacements made is counted.
+ * <p>
+ * A replacer keeps state between lines and should thereby not be shared between threads.
+ */
+public class RegexpReplacer {
+    //
+    // Private Members
+    //
+
+    /** The matcher which is reset for each line. */
+    private Matcher matcher;
+
+    /** The replacement with group references. */
+    private String replacement;
+
+    /** The new line is built here. */
+    private StringBuilder result = new StringBuilder();
+
+    /** The number of replacements made. */
+    private int count = 0;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Creates a new RegexpReplacer.
+     *
+     * @param pattern The pattern to replace matches of.
+     * @param replacement The replacement which can refer to groups of the match.
+     */
+    public RegexpReplacer(Pattern pattern, String replacement) {
+        this.matcher = pattern.matcher("");
+        this.replacement = replacement;
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Replaces all matches in a line. Returns the new line, or null if the pattern does not match
+     * anywhere in the line.
+     *
+     * @param line The line to replace in.
+     */
+    public String replace(CharSequence line) {
+        this.matcher.reset(line);
+        if (!this.matcher.find()) {
+            return null;
+        }
+        this.result.setLength(0);
+        do {
+            this.matcher.appendReplacement(this.result, this.replacement);
+            ++this.count;
+        }
+        while (this.matcher.find());
+        this.matcher.appendTail(this.result);
+        return this.result.toString();
+    }
+
+    /**
+     * Returns the total number of replacements made.
+     */
+    public int getCount() {
+        return this.count;
+    }
+}
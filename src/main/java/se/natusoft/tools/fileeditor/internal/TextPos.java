@@ -39,6 +39,9 @@ package se.natusoft.tools.fileeditor.internal;
 
 /**
  * This represents a positional that ranges from 1 to Integer.MAX_VALUE.
+ * <p>
+ * A TextPos is immutable and can thereby be shared freely, also between threads. Use of(int)
+ * rather than the constructors to get a shared instance for small values without allocating.
  */
 public class TextPos {
     //
@@ -58,20 +61,32 @@ public class TextPos {
     /** The value that represents the last position. */
     private static final int LAST_VALUE = Integer.MAX_VALUE;
 
+    /** Values from 1 up to this are cached by of(int). */
+    private static final int CACHE_SIZE = 1024;
+
+    /** The cached instances, where the value 1 is at index 0. */
+    private static final TextPos[] CACHE = new TextPos[CACHE_SIZE];
+
+    static {
+        for (int i = 0; i < CACHE_SIZE; i++) {
+            CACHE[i] = new TextPos(i + 1);
+        }
+    }
+
     /** The first TextPos value. */
-    public static final TextPos FIRST = new TextPos(1);
+    public static final TextPos FIRST = CACHE[0];
 
     /** The second TextPos value. */
-    public static final TextPos SECOND = new TextPos(2);
+    public static final TextPos SECOND = CACHE[1];
 
     /** Represents the unknown last position. */
     public static final TextPos LAST = new TextPos(LAST_VALUE);
 
-    /** The current value. */
-    private int value;
+    /** The value. */
+    private final int value;
     
     /** Set to true if an invalid value is received. It will be adjusted to an ok value, but this flag will be set. */
-    private boolean invalid = false;
+    private final boolean invalid;
         
     //
     // Constructors
@@ -82,6 +97,7 @@ public class TextPos {
      */
     public TextPos() {
         this.value = 1;
+        this.invalid = false;
     }
 
     /**
@@ -90,8 +106,8 @@ public class TextPos {
      * @param value The initial position (where 1 is the lowest value!).
      */
     public TextPos(int value) {
-        this.value = value;
-        adjustLimits(NO_MAX_LIMIT);
+        this.value = value < 1 ? 1 : value;
+        this.invalid = value < 1;
     }
     
     /**
@@ -101,13 +117,7 @@ public class TextPos {
      * @param value The initial position (lowest value is 0 or 1 depending on value of baseZero).
      */
     public TextPos(boolean baseZero, int value) {
-        if (baseZero) {
-            this.value = value + 1;
-        }
-        else {
-            this.value = value;
-        }
-        adjustLimits(NO_MAX_LIMIT);
+        this(baseZero ? value + 1 : value);
     }
     
     //
@@ -115,20 +125,48 @@ public class TextPos {
     //
 
     /**
-     * Adjusts the limits of the value.
+     * Returns a TextPos for the specified value, which is a shared instance for small values. Just like
+     * the constructor a value less than 1 is adjusted to 1, but this does not remember that it was invalid.
+     *
+     * @param value The position (where 1 is the lowest value!).
      */
-    public final void adjustLimits(int max) {
-        this.invalid = false;
-        if (this.value < 1) {
-            this.value = 1;
-            this.invalid = true;
+    public static TextPos of(int value) {
+        if (value < 1) {
+            return FIRST;
         }
-        if (max > 0) {
-            if (this.value > max) {
-                this.value = max;
-                this.invalid = true;
-            }
+        return value <= CACHE_SIZE ? CACHE[value - 1] : new TextPos(value);
+    }
+
+    /**
+     * Returns true if the value is within 1 and the specified max value.
+     *
+     * @param max The max value or NO_MAX_LIMIT.
+     */
+    public boolean isWithinLimit(int max) {
+        return isWithinLimit(this.value, max);
+    }
+
+    /**
+     * Returns true if a value is within 1 and the specified max value.
+     *
+     * @param value The value to check.
+     * @param max The max value or NO_MAX_LIMIT. A max value less than 1 means no max limit.
+     */
+    public static boolean isWithinLimit(int value, int max) {
+        return value >= 1 && (max <= 0 || value <= max);
+    }
+
+    /**
+     * Returns the value adjusted to be within 1 and the specified max value.
+     *
+     * @param value The value to adjust.
+     * @param max The max value or NO_MAX_LIMIT. A max value less than 1 means no max limit.
+     */
+    public static int withinLimit(int value, int max) {
+        if (max > 0 && value > max) {
+            value = max;
         }
+        return value < 1 ? 1 : value;
     }
 
     /**
@@ -137,7 +175,7 @@ public class TextPos {
      * @param size The amount to inrement with.
      */
     public TextPos increment(int size) {
-        return new TextPos(this.value + size);
+        return of(this.value + size);
     }
 
     /**
@@ -153,7 +191,7 @@ public class TextPos {
      * @param size The amount to decrement the position with.
      */
     public TextPos decrement(int size) {
-        return new TextPos(this.value - size);
+        return of(this.value - size);
     }
 
     /**
@@ -198,6 +236,14 @@ public class TextPos {
         return this.value == LAST_VALUE;
     }
 
+    /**
+     * Returns a hash code that is consistent with equals().
+     */
+    @Override
+    public int hashCode() {
+        return this.value;
+    }
+
     /**
      * Returns true if the specified object is equal to this object.
      * 
@@ -318,7 +364,7 @@ public class TextPos {
      * @param value The base zero value to convert to a TextPos.
      */
     public static TextPos fromBaseZeroValue(int value) {
-        return new TextPos(TextPos.BASE_ZERO, value);
+        return of(value + 1);
     }
 
     /**
@@ -329,10 +375,7 @@ public class TextPos {
      * @param length The length value to make a TextPos of.
      */
     public static TextPos fromLengthValue(int length) {
-        if (length <= 0) {
-            length = 1;
-        }
-        return new TextPos(length);
+        return of(length);
     }
 
     /**
@@ -0,0 +1,659 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * An index of the trigrams, that is the sequences of three characters, of the lines in a buffer.
+ * <p>
+ * Each trigram maps to a posting list of the lines containing it. A search for a text or a pattern
+ * requiring some text first intersects the posting lists of the trigrams of that text, and only the
+ * lines left need to be searched for real. Patterns that do not require any text of at least three
+ * characters cannot be narrowed and all lines must then be searched.
+ * <p>
+ * Lines are given an id when indexed, and posting lists hold ids rather than line numbers so that
+ * inserting or removing a line does not affect the posting lists of the other lines. Ids are handed
+ * out in increasing order so posting lists are kept sorted and compressed as the differences between
+ * ids in a variable length encoding. A changed or removed line leaves its old id behind in the posting
+ * lists, and the whole index is built again on the next query when there are more old ids than lines.
+ * <p>
+ * The index must be told about every edit of the buffer through lineSet(...), lineInserted(...), and
+ * lineRemoved(...), which BufferWrapper does for the edits made through it.
+ */
+public class TrigramIndex {
+    //
+    // Constants
+    //
+
+    /** The number of characters in each indexed gram. */
+    private static final int GRAM_LENGTH = 3;
+
+    /** The pattern flags that do not affect what a pattern matches within a line. */
+    private static final int LINE_NEUTRAL_FLAGS = Pattern.MULTILINE | Pattern.DOTALL | Pattern.UNIX_LINES;
+
+    /** The escaped letters that stand for a class of characters or an anchor and take no argument. */
+    private static final String SIMPLE_ESCAPES = "tnrfaedDsSwWbBAGZzhHvVRX";
+
+    /** The number of old ids allowed in addition to one per line before the index is built again. */
+    private static final int MIN_OLD_IDS = 1024;
+
+    //
+    // Private Members
+    //
+
+    /** The indexed buffer. */
+    private BufferWrapper buffer;
+
+    /** The posting list of each trigram. */
+    private Map<Long, Postings> postings = new HashMap<Long, Postings>();
+
+    /** The id of each line by base 0 index. */
+    private int[] lineIds;
+
+    /** The number of lines. */
+    private int size;
+
+    /** The next id to hand out. */
+    private int nextId;
+
+    /** The base 1 line number of each id, or 0 for an old id. This is built when needed and null until then. */
+    private int[] idLines;
+
+    /** The pattern of the last call to candidateLines(...) or null if there is none or the index has changed since. */
+    private Pattern lastPattern = null;
+
+    /** The result of the last call to candidateLines(...). */
+    private int[] lastCandidates = null;
+
+    //
+    // Constructors
+    //
+
+    /**
+     * Builds a new TrigramIndex.
+     *
+     * @param buffer The buffer to index.
+     */
+    public TrigramIndex(BufferWrapper buffer) {
+        this.buffer = buffer;
+        build();
+    }
+
+    //
+    // Methods
+    //
+
+    /**
+     * Builds the index from scratch.
+     */
+    private void build() {
+        this.postings.clear();
+        this.nextId = 0;
+        this.idLines = null;
+        this.lastPattern = null;
+        int lastLine = this.buffer.getLastLine();
+        this.lineIds = new int[Math.max(lastLine, 16)];
+        this.size = 0;
+        for (int lineNo = 1; lineNo <= lastLine; lineNo++) {
+            this.lineIds[this.size++] = index(this.buffer.getLineChars(lineNo));
+        }
+    }
+
+    /**
+     * Adds the trigrams of a line to the posting lists under a new id and returns the id.
+     *
+     * @param line The line to index.
+     */
+    private int index(CharSequence line) {
+        int id = this.nextId++;
+        for (int i = 0; i + GRAM_LENGTH <= line.length(); i++) {
+            Long gram = gram(line, i);
+            Postings gramPostings = this.postings.get(gram);
+            if (gramPostings == null) {
+                gramPostings = new Postings();
+                this.postings.put(gram, gramPostings);
+            }
+            gramPostings.add(id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the trigram starting at the specified index packed into a long.
+     *
+     * @param text The text to get the trigram from.
+     * @param index The base 0 index of the first character of the trigram.
+     */
+    private static long gram(CharSequence text, int index) {
+        return ((long)text.charAt(index) << 32) | ((long)text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+
+    /**
+     * Updates the index for a line that has been replaced.
+     *
+     * @param index The base 0 index of the line.
+     * @param text The new text of the line.
+     */
+    public void lineSet(int index, CharSequence text) {
+        int oldId = this.lineIds[index];
+        int id = index(text);
+        this.lineIds[index] = id;
+        if (this.idLines != null) {
+            if (id >= this.idLines.length) {
+                this.idLines = Arrays.copyOf(this.idLines, Math.max(id + 1, this.idLines.length * 2));
+            }
+            this.idLines[oldId] = 0;
+            this.idLines[id] = index + 1;
+        }
+        changed();
+    }
+
+    /**
+     * Updates the index for a line that has been inserted.
+     *
+     * @param index The base 0 index of the new line.
+     * @param text The text of the new line.
+     */
+    public void lineInserted(int index, CharSequence text) {
+        if (this.size == this.lineIds.length) {
+            this.lineIds = Arrays.copyOf(this.lineIds, this.size * 2);
+        }
+        System.arraycopy(this.lineIds, index, this.lineIds, index + 1, this.size - index);
+        this.lineIds[index] = index(text);
+        ++this.size;
+        this.idLines = null;
+        changed();
+    }
+
+    /**
+     * Updates the index for a range of lines that have been inserted. The lines after them are
+     * moved only once however many lines are inserted.
+     *
+     * @param index The base 0 index of the first new line.
+     * @param lines The texts of the new lines.
+     */
+    public void linesInserted(int index, List<String> lines) {
+        int count = lines.size();
+        if (this.size + count > this.lineIds.length) {
+            this.lineIds = Arrays.copyOf(this.lineIds, Math.max(this.size + count, this.lineIds.length * 2));
+        }
+        System.arraycopy(this.lineIds, index, this.lineIds, index + count, this.size - index);
+        for (String text : lines) {
+            this.lineIds[index++] = index(text);
+        }
+        this.size += count;
+        this.idLines = null;
+        changed();
+    }
+
+    /**
+     * Updates the index for a line that has been removed.
+     *
+     * @param index The base 0 index the line had.
+     */
+    public void lineRemoved(int index) {
+        linesRemoved(index, 1);
+    }
+
+    /**
+     * Updates the index for a range of lines that have been removed. The lines after them are
+     * moved only once however many lines are removed.
+     *
+     * @param index The base 0 index the first removed line had.
+     * @param count The number of removed lines.
+     */
+    public void linesRemoved(int index, int count) {
+        System.arraycopy(this.lineIds, index + count, this.lineIds, index, this.size - index - count);
+        this.size -= count;
+        this.idLines = null;
+        changed();
+    }
+
+    /**
+     * Forgets the last query since its result may no longer be valid.
+     */
+    private void changed() {
+        this.lastPattern = null;
+    }
+
+    /**
+     * Returns the base 1 line number of each id, building it first if needed.
+     */
+    private int[] getIdLines() {
+        if (this.idLines == null) {
+            this.idLines = new int[Math.max(this.nextId, 16)];
+            for (int i = 0; i < this.size; i++) {
+                this.idLines[this.lineIds[i]] = i + 1;
+            }
+        }
+        return this.idLines;
+    }
+
+    /**
+     * Returns the base 1 numbers in ascending order of the lines that may contain a match of the
+     * pattern, or null if the pattern cannot be narrowed by the index and every line must be searched.
+     * <p>
+     * The result of the last call is remembered until the index changes, so searching for the same
+     * pattern repeatedly between edits only queries the index once. The returned array must not be
+     * modified!
+     *
+     * @param pattern The pattern to get the candidate lines of.
+     */
+    public int[] candidateLines(Pattern pattern) {
+        if (pattern != this.lastPattern) {
+            // Not done on each edit since the buffer can be ahead of the index while several lines are updated.
+            if (this.nextId - this.size > this.size + MIN_OLD_IDS) {
+                build();
+            }
+            this.lastCandidates = query(pattern);
+            this.lastPattern = pattern;
+        }
+        return this.lastCandidates;
+    }
+
+    /**
+     * Queries the index for the candidate lines of a pattern.
+     *
+     * @param pattern The pattern to get the candidate lines of.
+     */
+    private int[] query(Pattern pattern) {
+        List<String> literals = requiredLiterals(pattern);
+        if (literals == null) {
+            return null;
+        }
+
+        List<Postings> lists = new ArrayList<Postings>();
+        Set<Long> grams = new HashSet<Long>();
+        for (String literal : literals) {
+            for (int i = 0; i + GRAM_LENGTH <= literal.length(); i++) {
+                Long gram = gram(literal, i);
+                if (grams.add(gram)) {
+                    Postings gramPostings = this.postings.get(gram);
+                    if (gramPostings == null) {
+                        return new int[0];
+                    }
+                    lists.add(gramPostings);
+                }
+            }
+        }
+        Collections.sort(lists, new Comparator<Postings>() {
+            public int compare(Postings p1, Postings p2) {
+                return Integer.compare(p1.count, p2.count);
+            }
+        });
+
+        int[] ids = lists.get(0).decode();
+        int count = ids.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = lists.get(i).retain(ids, count);
+        }
+
+        int[] lines = getIdLines();
+        int[] candidates = new int[count];
+        int noCandidates = 0;
+        for (int i = 0; i < count; i++) {
+            int lineNo = lines[ids[i]];
+            if (lineNo != 0) {
+                candidates[noCandidates++] = lineNo;
+            }
+        }
+        candidates = Arrays.copyOf(candidates, noCandidates);
+        Arrays.sort(candidates);
+
+        return candidates;
+    }
+
+    /**
+     * Returns texts of at least three characters that every match of the pattern must contain, or null
+     * if no such text could be found. The pattern is only looked at as far as needed to be sure, so
+     * patterns with alternations, special constructs, or flags affecting matching are never narrowed.
+     *
+     * @param pattern The pattern to get the required texts of.
+     */
+    public static List<String> requiredLiterals(Pattern pattern) {
+        String regexp = pattern.pattern();
+        List<String> literals = new ArrayList<String>();
+        if (pattern.flags() == Pattern.LITERAL) {
+            if (regexp.length() >= GRAM_LENGTH) {
+                literals.add(regexp);
+            }
+            return literals.isEmpty() ? null : literals;
+        }
+        if ((pattern.flags() & ~LINE_NEUTRAL_FLAGS) != 0 || regexp.indexOf("(?") >= 0) {
+            return null;
+        }
+
+        // Only text outside of groups is collected. A quantifier that allows zero repetitions makes
+        // the character before it optional.
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        int length = regexp.length();
+        int i = 0;
+        while (i < length) {
+            char c = regexp.charAt(i++);
+            switch (c) {
+                case '\\':
+                    if (i == length) {
+                        return null;
+                    }
+                    char escaped = regexp.charAt(i++);
+                    if (escaped == 'Q') {
+                        int end = regexp.indexOf("\\E", i);
+                        if (end < 0) {
+                            end = length;
+                        }
+                        if (depth == 0) {
+                            run.append(regexp, i, end);
+                        }
+                        i = Math.min(end + 2, length);
+                    }
+                    else if (Character.isLetterOrDigit(escaped)) {
+                        if (SIMPLE_ESCAPES.indexOf(escaped) < 0) {
+                            return null;
+                        }
+                        endRun(run, literals);
+                    }
+                    else if (depth == 0) {
+                        run.append(escaped);
+                    }
+                    break;
+
+                case '|':
+                    return null;
+
+                case '(':
+                    ++depth;
+                    endRun(run, literals);
+                    break;
+
+                case ')':
+                    if (--depth < 0) {
+                        return null;
+                    }
+                    break;
+
+                case '[':
+                    i = skipClass(regexp, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                    endRun(run, literals);
+                    break;
+
+                case '{':
+                    i = regexp.indexOf('}', i) + 1;
+                    if (i == 0) {
+                        return null;
+                    }
+                    // This can allow zero repetitions.
+                    endOptionalRun(run, literals);
+                    break;
+
+                case '?':
+                case '*':
+                    endOptionalRun(run, literals);
+                    break;
+
+                case '+':
+                case '.':
+                case '^':
+                case '$':
+                    endRun(run, literals);
+                    break;
+
+                default:
+                    if (depth == 0) {
+                        run.append(c);
+                    }
+            }
+        }
+        endRun(run, literals);
+
+        return literals.isEmpty() ? null : literals;
+    }
+
+    /**
+     * Saves a run of required text if it is long enough to be looked up and starts a new run.
+     *
+     * @param run The run of required text.
+     * @param literals The required texts to save to.
+     */
+    private static void endRun(StringBuilder run, List<String> literals) {
+        if (run.length() >= GRAM_LENGTH) {
+            literals.add(run.toString());
+        }
+        run.setLength(0);
+    }
+
+    /**
+     * Ends a run of required text whose last character is made optional by a quantifier.
+     *
+     * @param run The run of required text.
+     * @param literals The required texts to save to.
+     */
+    private static void endOptionalRun(StringBuilder run, List<String> literals) {
+        if (run.length() > 0) {
+            run.setLength(run.length() - 1);
+        }
+        endRun(run, literals);
+    }
+
+    /**
+     * Skips a character class and returns the index after it, or -1 if the class is of a form
+     * that cannot safely be skipped.
+     *
+     * @param regexp The regular expression containing the class.
+     * @param index The index after the opening '['.
+     */
+    private static int skipClass(String regexp, int index) {
+        int length = regexp.length();
+        int depth = 1;
+        while (index < length) {
+            if (regexp.charAt(index) == '^') {
+                ++index;
+            }
+            // A ']' first in a class is a plain character.
+            if (index < length && regexp.charAt(index) == ']') {
+                return -1;
+            }
+            while (index < length) {
+                char c = regexp.charAt(index++);
+                if (c == '\\') {
+                    if (index < length && regexp.charAt(index) == 'Q') {
+                        return -1;
+                    }
+                    ++index;
+                }
+                else if (c == '[') {
+                    ++depth;
+                    break;
+                }
+                else if (c == ']' && --depth == 0) {
+                    return index;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the first line at or after the specified line in an array of candidate lines, or
+     * Integer.MAX_VALUE if there is none. A null array means that every line is a candidate.
+     *
+     * @param candidates The candidate lines in ascending order or null.
+     * @param lineNo The line to start at.
+     */
+    public static int nextLine(int[] candidates, int lineNo) {
+        if (candidates == null) {
+            return lineNo;
+        }
+        int ix = Arrays.binarySearch(candidates, lineNo);
+        if (ix < 0) {
+            ix = -ix - 1;
+        }
+        return ix < candidates.length ? candidates[ix] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the last line at or before the specified line in an array of candidate lines, or
+     * 0 if there is none. A null array means that every line is a candidate.
+     *
+     * @param candidates The candidate lines in ascending order or null.
+     * @param lineNo The line to start at.
+     */
+    public static int prevLine(int[] candidates, int lineNo) {
+        if (candidates == null) {
+            return lineNo;
+        }
+        int ix = Arrays.binarySearch(candidates, lineNo);
+        if (ix < 0) {
+            ix = -ix - 2;
+        }
+        return ix >= 0 ? candidates[ix] : 0;
+    }
+
+    //
+    // Inner Classes
+    //
+
+    /**
+     * A sorted list of ids stored as the differences between them, 7 bits per byte with the high
+     * bit set on all but the last byte of each difference.
+     */
+    private static class Postings {
+
+        /** The encoded differences. */
+        private byte[] data = new byte[4];
+
+        /** The number of bytes used in data. */
+        private int length = 0;
+
+        /** The number of ids. */
+        private int count = 0;
+
+        /** The last id added. */
+        private int last = -1;
+
+        /**
+         * Adds an id, which must not be lower than the last id added. Adding the last id again does nothing.
+         *
+         * @param id The id to add.
+         */
+        private void add(int id) {
+            if (id == this.last) {
+                return;
+            }
+            if (this.length + 5 > this.data.length) {
+                this.data = Arrays.copyOf(this.data, this.data.length * 2 + 5);
+            }
+            int delta = id - this.last;
+            while (delta >= 0x80) {
+                this.data[this.length++] = (byte)(delta | 0x80);
+                delta >>>= 7;
+            }
+            this.data[this.length++] = (byte)delta;
+            this.last = id;
+            ++this.count;
+        }
+
+        /**
+         * Returns all ids.
+         */
+        private int[] decode() {
+            int[] ids = new int[this.count];
+            int pos = 0;
+            int id = -1;
+            for (int i = 0; i < this.count; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = this.data[pos++];
+                    delta |= (b & 0x7f) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += delta;
+                ids[i] = id;
+            }
+            return ids;
+        }
+
+        /**
+         * Removes the ids not in this list from a sorted array of ids and returns the number of ids left,
+         * which are moved to the start of the array.
+         *
+         * @param ids The ids to filter.
+         * @param count The number of ids in the array.
+         */
+        private int retain(int[] ids, int count) {
+            int kept = 0;
+            int ix = 0;
+            int pos = 0;
+            int id = -1;
+            for (int i = 0; i < this.count && ix < count; i++) {
+                int delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = this.data[pos++];
+                    delta |= (b & 0x7f) << shift;
+                    shift += 7;
+                } while (b < 0);
+                id += delta;
+                while (ix < count && ids[ix] < id) {
+                    ++ix;
+                }
+                if (ix < count && ids[ix] == id) {
+                    ids[kept++] = id;
+                    ++ix;
+                }
+            }
+            return kept;
+        }
+    }
+}
@@ -0,0 +1,509 @@
+/* 
+ * 
+ * PROJECT
+ *     Name
+ *         FileEditor
+ *     
+ *     Code Version
+ *         2.0.3
+ *     
+ *     Description
+ *         Provides a programmable only text file editor. No gui is available. It supplies
+ *         most of the features you expect from an editor including selections.
+ *         
+ * COPYRIGHTS
+ *     Copyright (C) 2012 by Natusoft AB All rights reserved.
+ *     
+ * LICENSE
+ *     Apache 2.0 (Open Source)
+ *     
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *     
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *     
+ * AUTHORS
+ *     tommy ()
+ *         Changes:
+ *         2026-10-17: Created!
+ *         
+ */
+package se.natusoft.tools.fileeditor;
+
+import junit.framework.TestCase;
+import se.natusoft.tools.fileeditor.internal.ParallelLineLoader;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests the TextBuffer implementations.
+ */
+public class TextBufferTest extends TestCase {
+
+    /** Mixed line terminators and a last line without terminator. */
+    private static final String TEST_CONTENT =
+            "import some.path.to.somewhere;\n" +
+            "import elsewhere.some.place;\r\n" +
+            "\n" +
+            "@Test1(blaha=qwerty)\r" +
+            "@Test2(qaz=wsx)\n" +
+            "  \r\n" +
+            "One Two Three Four Five Six Seven Eight Nine Ten";
+
+    private File testFile = null;
+
+    public TextBufferTest(String testName) {
+        super(testName);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        this.testFile = createFile(TEST_CONTENT);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.testFile.delete();
+        super.tearDown();
+    }
+
+    private File createFile(String content) throws IOException {
+        File file = File.createTempFile("TextBufferTest", ".txt");
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        }
+        finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private void assertSameLines(TextBuffer expected, TextBuffer actual) {
+        assertEquals(expected.getSize(), actual.getSize());
+        for (int i = 0; i < expected.getSize(); i++) {
+            assertEquals("Line " + i + " differs!", expected.getLine(i), actual.getLine(i));
+        }
+    }
+
+    private TextBuffer loadTextFileBuffer(File file) throws IOException {
+        TextBuffer buffer = new TextFileBuffer();
+        buffer.load(file.getAbsolutePath());
+        return buffer;
+    }
+
+    /**
+     * Does the same random edits on the specified buffer and a TextFileBuffer and verifies that
+     * they end up with the same content. Both buffers must have been loaded from the same file.
+     *
+     * @param buffer The buffer to verify.
+     */
+    private void assertSameAfterRandomEdits(TextBuffer buffer) throws IOException {
+        TextBuffer expected = loadTextFileBuffer(this.testFile);
+        Random random = new Random(4711);
+        for (int i = 0; i < 2000; i++) {
+            int op = random.nextInt(6);
+            if (op == 0 || expected.getSize() == 0) {
+                int line = random.nextInt(expected.getSize() + 1);
+                expected.insertLine(line, "inserted " + i);
+                buffer.insertLine(line, "inserted " + i);
+            }
+            else if (op == 1) {
+                int line = random.nextInt(expected.getSize());
+                expected.removeLine(line);
+                buffer.removeLine(line);
+            }
+            else if (op == 2) {
+                int line = random.nextInt(expected.getSize());
+                expected.setLine(line, "set " + i);
+                buffer.setLine(line, "set " + i);
+            }
+            else if (op == 4) {
+                int line = random.nextInt(expected.getSize());
+                int count = random.nextInt(Math.min(expected.getSize() - line, 5) + 1);
+                expected.removeLines(line, count);
+                buffer.removeLines(line, count);
+            }
+            else if (op == 5) {
+                int line = random.nextInt(expected.getSize() + 1);
+                List<String> lines = new ArrayList<String>();
+                for (int j = random.nextInt(5); j > 0; j--) {
+                    lines.add("batch " + i + "." + j);
+                }
+                expected.insertLines(line, lines);
+                buffer.insertLines(line, lines);
+            }
+            else {
+                expected.addLine("added " + i);
+                buffer.addLine("added " + i);
+            }
+        }
+        assertSameLines(expected, buffer);
+
+        File saved = File.createTempFile("TextBufferTest", ".txt");
+        try {
+            buffer.saveAs(saved.getAbsolutePath());
+            assertSameLines(expected, loadTextFileBuffer(saved));
+        }
+        finally {
+            saved.delete();
+        }
+    }
+
+    /**
+     * Test that loading a file in parallel chunks gives the same lines as a BufferedReader.
+     */
+    public void testParallelLineLoader() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            content.append(TEST_CONTENT).append(i % 3 == 0 ? "\r\n" : (i % 3 == 1 ? "\r" : "\n"));
+            content.append("åäö line ").append(i).append("\n\n");
+        }
+        content.append("no terminator");
+        File file = createFile(content.toString());
+        try {
+            TextBuffer expected = new TextFileBuffer(Charset.forName("UTF-8"));
+            expected.load(file.getAbsolutePath());
+            for (int chunkSize : new int[] {1, 7, 100, 4096, 10000000}) {
+                TextBuffer buffer = new TextFileBuffer();
+                for (String line : ParallelLineLoader.load(file, Charset.forName("UTF-8"), chunkSize)) {
+                    buffer.addLine(line);
+                }
+                assertSameLines(expected, buffer);
+            }
+        }
+        finally {
+            file.delete();
+        }
+
+        // Chunks also end after a lone '\r', but never between a '\r' and a '\n'.
+        content.setLength(0);
+        for (int i = 0; i < 500; i++) {
+            content.append("line ").append(i).append(i % 50 == 0 ? "\r\n" : "\r");
+        }
+        file = createFile(content.toString());
+        try {
+            TextBuffer expected = new TextFileBuffer(Charset.forName("UTF-8"));
+            expected.load(file.getAbsolutePath());
+            assertEquals(500, expected.getSize());
+            for (int chunkSize : new int[] {1, 7, 100}) {
+                TextBuffer buffer = new TextFileBuffer();
+                for (String line : ParallelLineLoader.load(file, Charset.forName("UTF-8"), chunkSize)) {
+                    buffer.addLine(line);
+                }
+                assertSameLines(expected, buffer);
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test that unmodified buffers are not saved, and of content hashing.
+     */
+    public void testSaveOnlyIfModified() throws IOException {
+        Charset utf8 = Charset.forName("UTF-8");
+        TextBuffer[] buffers = {new TextFileBuffer(utf8), new PieceTableTextBuffer(utf8), new BTreeTextBuffer(utf8),
+                new CompactTextFileBuffer(utf8)};
+        long fileHash = TextFileEditor.getContentHash(this.testFile, utf8);
+        for (TextBuffer buffer : buffers) {
+            TextFileEditor editor = new TextFileEditor();
+            editor.setTextBuffer(buffer);
+            editor.load(this.testFile);
+            assertFalse(editor.isModified());
+            assertEquals(fileHash, editor.getContentHash());
+
+            this.testFile.setLastModified(100000L);
+            editor.save();
+            assertEquals(100000L, this.testFile.lastModified());
+
+            editor.moveDown(3);
+            editor.setLine("@Test1(blaha=changed)");
+            assertTrue(editor.isModified());
+            assertFalse(fileHash == editor.getContentHash());
+            editor.save();
+            assertFalse(editor.isModified());
+            assertFalse(100000L == this.testFile.lastModified());
+            assertEquals(TextFileEditor.getContentHash(this.testFile, utf8), editor.getContentHash());
+
+            this.testFile.delete();
+            this.testFile = createFile(TEST_CONTENT);
+        }
+    }
+
+    /**
+     * Test of load and getLine methods, of class MappedTextFileBuffer.
+     */
+    public void testMappedTextFileBufferLoad() throws IOException {
+        TextBuffer buffer = new MappedTextFileBuffer();
+        buffer.load(this.testFile.getAbsolutePath());
+        assertEquals(7, buffer.getSize());
+        assertSameLines(loadTextFileBuffer(this.testFile), buffer);
+
+        File empty = createFile("");
+        try {
+            buffer.load(empty.getAbsolutePath());
+            assertEquals(0, buffer.getSize());
+        }
+        finally {
+            empty.delete();
+        }
+    }
+
+    /**
+     * Test of using a MappedTextFileBuffer with TextFileEditor.
+     */
+    public void testMappedTextFileBufferInEditor() throws IOException {
+        TextFileEditor editor = new TextFileEditor();
+        editor.setTextBuffer(new MappedTextFileBuffer());
+        editor.load(this.testFile);
+
+        List<Occurence> occurences = editor.findAllLinesMatching("^@Test.*");
+        assertEquals(2, occurences.size());
+        assertEquals(4, occurences.get(0).getPosition().getLine());
+        assertEquals(5, occurences.get(1).getPosition().getLine());
+
+        try {
+            editor.insertLine("Not allowed!");
+            fail("Expected UnsupportedOperationException!");
+        }
+        catch (UnsupportedOperationException uoe) {
+            // Expected.
+        }
+    }
+
+    /**
+     * Test of editing a PieceTableTextBuffer.
+     */
+    public void testPieceTableTextBufferEdits() throws IOException {
+        TextBuffer buffer = new PieceTableTextBuffer();
+        buffer.load(this.testFile.getAbsolutePath());
+        assertSameLines(loadTextFileBuffer(this.testFile), buffer);
+        assertSameAfterRandomEdits(buffer);
+    }
+
+    /**
+     * Test of save method, of class PieceTableTextBuffer.
+     */
+    public void testPieceTableTextBufferSave() throws IOException {
+        TextFileEditor editor = new TextFileEditor();
+        editor.setTextBuffer(new PieceTableTextBuffer());
+        editor.load(this.testFile);
+        editor.moveDown(2);
+        editor.insertLine("// Inserted");
+        editor.replaceAllInFile("some", "every");
+        editor.save();
+
+        TextBuffer saved = loadTextFileBuffer(this.testFile);
+        assertEquals(8, saved.getSize());
+        assertEquals("import every.path.to.everywhere;", saved.getLine(0));
+        assertEquals("// Inserted", saved.getLine(3));
+        assertSameLines(saved, editor.getTextBuffer());
+    }
+
+    /**
+     * Test of incremental save of a PieceTableTextBuffer.
+     */
+    public void testPieceTableTextBufferIncrementalSave() throws IOException {
+        PieceTableTextBuffer buffer = new PieceTableTextBuffer(Charset.forName("UTF-8"));
+        buffer.setIncrementalSave(true);
+        buffer.load(this.testFile);
+        buffer.setLine(3, "@Test1(blaha=changed)");
+        buffer.addLine("Appended");
+        buffer.save();
+
+        String separator = System.lineSeparator();
+        String expected =
+                "import some.path.to.somewhere;\n" +
+                "import elsewhere.some.place;\r\n" +
+                "\n" +
+                "@Test1(blaha=changed)" + separator +
+                "@Test2(qaz=wsx)\n" +
+                "  \r\n" +
+                "One Two Three Four Five Six Seven Eight Nine Ten" + separator +
+                "Appended" + separator;
+        assertEquals(expected, new String(Files.readAllBytes(this.testFile.toPath()), "UTF-8"));
+        assertSameLines(loadTextFileBuffer(this.testFile), buffer);
+
+        assertSameAfterRandomEdits(buffer);
+    }
+
+    /**
+     * Test of editing a PagedTextBuffer with a cache so small that modified pages are spilled.
+     */
+    public void testPagedTextBufferEdits() throws IOException {
+        TextBuffer buffer = new PagedTextBuffer(Charset.forName("UTF-8"), 1);
+        buffer.load(this.testFile.getAbsolutePath());
+        assertSameLines(loadTextFileBuffer(this.testFile), buffer);
+        assertSameAfterRandomEdits(buffer);
+    }
+
+    /**
+     * Test of paging, splitting, spilling, and saving a PagedTextBuffer.
+     */
+    public void testPagedTextBufferPages() throws IOException {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            content.append("Line ").append(i).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        File file = createFile(content.toString());
+        try {
+            PagedTextBuffer buffer = new PagedTextBuffer(Charset.forName("UTF-8"), 64 * 1024);
+            buffer.load(file);
+            assertEquals(5000, buffer.getSize());
+            assertEquals("Line 4321", buffer.getLine(4321));
+            for (int i = 0; i < 3000; i++) {
+                buffer.insertLine(1500, "Inserted " + i);
+            }
+            buffer.removeLine(0);
+            buffer.setLine(7000, "Changed");
+            assertEquals(7999, buffer.getSize());
+            assertEquals("Line 1", buffer.getLine(0));
+            assertEquals("Inserted 2999", buffer.getLine(1499));
+            assertEquals("Inserted 0", buffer.getLine(4498));
+            assertEquals("Line 1500", buffer.getLine(4499));
+            assertEquals("Changed", buffer.getLine(7000));
+            assertEquals("Line 4999", buffer.getLine(7998));
+
+            TextBuffer expected = new TextFileBuffer();
+            for (int i = 0; i < buffer.getSize(); i++) {
+                expected.addLine(buffer.getLine(i));
+            }
+            buffer.save();
+            assertFalse(buffer.isModified());
+            assertSameLines(expected, loadTextFileBuffer(file));
+            assertSameLines(expected, buffer);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test of editing a BTreeTextBuffer.
+     */
+    public void testBTreeTextBufferEdits() throws IOException {
+        TextBuffer buffer = new BTreeTextBuffer();
+        buffer.load(this.testFile.getAbsolutePath());
+        assertSameLines(loadTextFileBuffer(this.testFile), buffer);
+        assertSameAfterRandomEdits(buffer);
+    }
+
+    /**
+     * Test of splitting and merging blocks of a BTreeTextBuffer.
+     */
+    public void testBTreeTextBufferGrowAndShrink() {
+        TextBuffer expected = new TextFileBuffer();
+        TextBuffer buffer = new BTreeTextBuffer();
+        for (int i = 0; i < 20000; i++) {
+            expected.insertLine(expected.getSize() / 2, "line " + i);
+            buffer.insertLine(buffer.getSize() / 2, "line " + i);
+        }
+        assertSameLines(expected, buffer);
+
+        Random random = new Random(4711);
+        while (expected.getSize() > 10) {
+            int line = random.nextInt(expected.getSize());
+            expected.removeLine(line);
+            buffer.removeLine(line);
+        }
+        assertSameLines(expected, buffer);
+    }
+
+    /**
+     * Test of editing a CompactTextFileBuffer.
+     */
+    public void testCompactTextFileBufferEdits() throws IOException {
+        TextBuffer buffer = new CompactTextFileBuffer();
+        buffer.load(this.testFile.getAbsolutePath());
+        assertSameLines(loadTextFileBuffer(this.testFile), buffer);
+        assertSameAfterRandomEdits(buffer);
+    }
+
+    /**
+     * Test that saving a TextFileBuffer through a FileChannel gives the same file as through a PrintWriter.
+     */
+    public void testTextFileBufferChannelSave() throws IOException {
+        for (String charsetName : new String[] {"UTF-8", "ISO-8859-1", "UTF-16"}) {
+            TextFileBuffer buffer = new TextFileBuffer(Charset.forName(charsetName));
+            StringBuilder longLine = new StringBuilder();
+            for (int i = 0; i < 20000; i++) {
+                longLine.append("åäö\uD83D\uDE00-").append(i);
+            }
+            for (int i = 0; i < 200; i++) {
+                buffer.addLine("line " + i + " ÅÄÖ \u20AC");
+                buffer.addLine(longLine.toString());
+                buffer.addLine("");
+            }
+            buffer.addLine("lone surrogate \uD83D");
+
+            File channelSaved = File.createTempFile("TextBufferTest", ".txt");
+            File writerSaved = File.createTempFile("TextBufferTest", ".txt");
+            try {
+                buffer.saveAs(channelSaved);
+                buffer.setChannelSave(false);
+                buffer.saveAs(writerSaved);
+                assertTrue(charsetName, Arrays.equals(Files.readAllBytes(writerSaved.toPath()), Files.readAllBytes(channelSaved.toPath())));
+            }
+            finally {
+                channelSaved.delete();
+                writerSaved.delete();
+            }
+        }
+    }
+
+    /**
+     * Test of reclaiming garbage in a CompactTextFileBuffer.
+     */
+    public void testCompactTextFileBufferCompaction() {
+        TextBuffer expected = new TextFileBuffer();
+        TextBuffer buffer = new CompactTextFileBuffer(Charset.forName("UTF-8"));
+        StringBuilder longLine = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            longLine.append("åäö-").append(i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            expected.addLine(longLine.toString() + i);
+            buffer.addLine(longLine.toString() + i);
+        }
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 1000; i++) {
+                expected.setLine(i, round + longLine.toString() + i);
+                buffer.setLine(i, round + longLine.toString() + i);
+            }
+        }
+        assertSameLines(expected, buffer);
+    }
+
+    /**
+     * Test of searching a CompactTextFileBuffer through its read only line views.
+     */
+    public void testCompactTextFileBufferLatin1Search() throws IOException {
+        TextFileEditor editor = new TextFileEditor();
+        editor.setTextBuffer(new CompactTextFileBuffer(Charset.forName("ISO-8859-1")));
+        editor.load(this.testFile);
+
+        assertTrue(editor.find("qwe.ty"));
+        assertEquals(4, editor.getPosition().getLine());
+        assertEquals(14, editor.getPosition().getColumn());
+        assertEquals(2, editor.findAllLinesMatching("^import.*").size());
+        assertEquals(2, editor.findAllBlankLines().size());
+    }
+}
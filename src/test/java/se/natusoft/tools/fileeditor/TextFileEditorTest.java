@@ -38,9 +38,23 @@
 package se.natusoft.tools.fileeditor;
 
 import junit.framework.TestCase;
+import se.natusoft.tools.fileeditor.internal.BufferWrapper;
 import se.natusoft.tools.fileeditor.internal.TextPos;
-
+import se.natusoft.tools.fileeditor.internal.TrigramIndex;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Random;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 /**
  * Tests the editor functions.
@@ -194,6 +208,18 @@ public class TextFileEditorTest extends TestCase {
         TextFileEditor editor =  getTestBuffer1Editor();
         editor.moveToNextChar();
         assertTrue(editor.getPosition().getColumn() == 2);
+
+        // Moving past the end of a line continues on the next line.
+        editor.moveToEndOfLine();
+        editor.moveToNextChar();
+        assertEquals(2, editor.getPosition().getLine());
+        assertEquals(1, editor.getPosition().getColumn());
+
+        // Shared positions must not be affected by moving.
+        Position copy = editor.getPosition().clone();
+        editor.moveToNextChar();
+        assertEquals(1, copy.getColumn());
+        assertEquals(1, TextPos.FIRST.value());
     }
 
     /**
@@ -367,6 +393,14 @@ public class TextFileEditorTest extends TestCase {
         //System.out.println("pos:" + editor.getPosition());
         assertTrue(editor.getPosition().getLineNumber().equals(new TextPos(4)));
         assertTrue(editor.getPosition().getColumnNumber().equals(new TextPos(6)));
+
+        editor.moveToTopOfFile();
+        assertTrue(editor.findLast(Pattern.compile("dol\\w+ (in|sit)")));
+        assertEquals(3, editor.getPosition().getLine());
+        assertEquals(58, editor.getPosition().getColumn());
+
+        assertFalse(editor.findLast("Lorem"));
+        assertEquals(3, editor.getPosition().getLine());
     }
 
     /**
@@ -406,6 +440,11 @@ public class TextFileEditorTest extends TestCase {
         Occurence occ  = editor.findLastOccurence("dolor");
         assertTrue(occ.getPosition().getLine() == 4);
         assertTrue(occ.getPosition().getColumn() == 1);
+
+        occ = editor.findLastOccurence(Pattern.compile("[Dd]uis|Lorem"));
+        assertEquals(3, occ.getPosition().getLine());
+        assertEquals(34, occ.getPosition().getColumn());
+        assertNull(editor.findLastOccurence("nowhere"));
     }
 
     /**
@@ -475,6 +514,121 @@ public class TextFileEditorTest extends TestCase {
         assertTrue(occurences.get(3).getPosition().getLine() == 4);
     }
 
+    /**
+     * Test of the precompiled Pattern search methods, of class TextFileEditor.
+     */
+    public void testFindWithPattern() {
+        TextFileEditor editor =  getLoremIpsumEditor();
+        Pattern dolor = Pattern.compile("dolor");
+        List<Occurence> occurences = editor.findAllLinesMatching(Pattern.compile(".*dolor.*"));
+        assertEquals(4, occurences.size());
+        assertEquals(editor.findAllOccurences("dolor").size(), editor.findAllOccurences(dolor).size());
+
+        assertTrue(editor.find(dolor));
+        int line = editor.getPosition().getLine();
+        int column = editor.getPosition().getColumn();
+        assertTrue(editor.find("dolor"));
+        assertEquals(line, editor.getPosition().getLine());
+        assertEquals(column, editor.getPosition().getColumn());
+        assertTrue(editor.lineMatches(Pattern.compile(".*dolor.*")));
+    }
+
+    /**
+     * Test that plain text searches, which do not use the regexp engine, give the same result as a regexp.
+     */
+    public void testFindLiteral() {
+        TextFileEditor editor =  getLoremIpsumEditor();
+        String[] texts = {"dolor", "d", "um", "Lorem ipsum", "not there", "elit."};
+        for (String text : texts) {
+            List<Occurence> literal = editor.findAllOccurences(Pattern.compile(text, Pattern.LITERAL));
+            List<Occurence> regexp = editor.findAllOccurences(Pattern.compile("(?:" + Pattern.quote(text) + ")"));
+            assertEquals(text, regexp.size(), literal.size());
+            for (int i = 0; i < literal.size(); i++) {
+                assertEquals(text, regexp.get(i).getPosition().toString(), literal.get(i).getPosition().toString());
+            }
+        }
+        assertEquals(editor.findAllOccurences("(?:sit)").size(), editor.findAllOccurences("sit").size());
+    }
+
+    /**
+     * Test of findAllOccurences(Collection) method, of class TextFileEditor.
+     */
+    public void testFindAllOccurencesOfSeveral() {
+        TextFileEditor editor =  getLoremIpsumEditor();
+        List<String> texts = Arrays.asList("dolor", "or", "ipsum", "Lorem ipsum", "not there", "dolor");
+        Map<String, List<Occurence>> found = editor.findAllOccurences(texts);
+        assertEquals(5, found.size());
+        assertEquals("dolor", found.keySet().iterator().next());
+        assertTrue(found.get("not there").isEmpty());
+        for (String text : found.keySet()) {
+            List<Occurence> expected = editor.findAllOccurences(Pattern.compile(text, Pattern.LITERAL));
+            List<Occurence> actual = found.get(text);
+            assertEquals(text, expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(text, expected.get(i).getPosition().toString(), actual.get(i).getPosition().toString());
+            }
+        }
+    }
+
+    /**
+     * Test of findAllOccurencesParallel & findAllLinesMatchingParallel methods, of class TextFileEditor.
+     */
+    public void testFindParallel() {
+        TextBuffer loremIpsum = getLoremIpsumBuffer();
+        TextBuffer buffer = new TextFileBuffer();
+        for (int i = 0; i < 20000; i++) {
+            buffer.addLine(loremIpsum.getLine(i % loremIpsum.getSize()));
+        }
+        TextFileEditor editor = new TextFileEditor();
+        editor.setTextBuffer(buffer);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertSamePositions(editor.findAllOccurences("dolor"), editor.findAllOccurencesParallel("dolor"));
+            assertSamePositions(editor.findAllOccurences("[a-z]+or "),
+                    editor.findAllOccurencesParallel(Pattern.compile("[a-z]+or "), pool));
+            assertSamePositions(editor.findAllLinesMatching(".*dolor.*"), editor.findAllLinesMatchingParallel(".*dolor.*"));
+            assertSamePositions(editor.findAllLinesMatching("^dolor.*"),
+                    editor.findAllLinesMatchingParallel(Pattern.compile("^dolor.*"), pool));
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Test of the stream methods, of class TextFileEditor.
+     */
+    public void testStreamOccurences() {
+        TextBuffer loremIpsum = getLoremIpsumBuffer();
+        TextBuffer buffer = new TextFileBuffer();
+        for (int i = 0; i < 20000; i++) {
+            buffer.addLine(i % 7 == 0 ? "  " : loremIpsum.getLine(i % loremIpsum.getSize()));
+        }
+        TextFileEditor editor = new TextFileEditor();
+        editor.setTextBuffer(buffer);
+        editor.moveDown(10);
+        String position = editor.getPosition().toString();
+
+        assertSamePositions(editor.findAllOccurences("dolor"), editor.streamAllOccurences("dolor").collect(Collectors.toList()));
+        assertSamePositions(editor.findAllOccurences("[a-z]+or "),
+                editor.streamAllOccurences(Pattern.compile("[a-z]+or ")).parallel().collect(Collectors.toList()));
+        assertSamePositions(editor.findAllLinesMatching(".*dolor.*"), editor.streamAllLinesMatching(".*dolor.*").parallel().collect(Collectors.toList()));
+        assertSamePositions(editor.findAllBlankLines(), editor.streamAllBlankLines().collect(Collectors.toList()));
+
+        List<Occurence> first = editor.streamAllOccurences("dolor").limit(10).collect(Collectors.toList());
+        assertSamePositions(editor.findAllOccurences("dolor").subList(0, 10), first);
+        assertEquals(position, editor.getPosition().toString());
+    }
+
+    private void assertSamePositions(List<Occurence> expected, List<Occurence> actual) {
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getPosition().toString(), actual.get(i).getPosition().toString());
+        }
+    }
+
     /**
      * Test of startSelection & endSelection methods, of class TextFileEditor.
      */
@@ -598,6 +752,172 @@ public class TextFileEditorTest extends TestCase {
         //System.out.println("Current pos: " + editor.getPosition());
         assertTrue(editor.getPosition().getLine() == 4);
         assertTrue(editor.getPosition().getColumn() == 20);
+
+        TextBuffer buffer = new TextFileBuffer();
+        buffer.addLine("void main() {");
+        buffer.addLine("    if (true) {");
+        buffer.addLine("");
+        buffer.addLine("    }");
+        buffer.addLine("}");
+        buffer.addLine("");
+        editor.setTextBuffer(buffer);
+        editor.moveRight(12);
+        editor.moveToMatching('{', '}');
+        assertEquals(5, editor.getPosition().getLine());
+        assertEquals(1, editor.getPosition().getColumn());
+
+        editor.moveToTopOfFile();
+        editor.moveToMatching('<', '>');
+        assertEquals(5, editor.getPosition().getLine());
+        assertEquals(1, editor.getPosition().getColumn());
+    }
+
+    /**
+     * Test of moveToMatching method with a bracket index, of class TextFileEditor.
+     */
+    public void testMoveToMatchingWithIndex() {
+        TextBuffer buffer = new TextFileBuffer();
+        Random random = new Random(4711);
+        for (int i = 0; i < 500; i++) {
+            StringBuilder line = new StringBuilder();
+            for (int j = random.nextInt(12); j > 0; j--) {
+                line.append("{}()x ".charAt(random.nextInt(6)));
+            }
+            buffer.addLine(line.toString());
+        }
+        TextFileEditor scanning = new TextFileEditor();
+        scanning.setTextBuffer(buffer);
+        TextFileEditor indexed = new TextFileEditor();
+        indexed.setTextBuffer(buffer);
+        indexed.setBracketIndexPairs("{}()[]");
+
+        for (int i = 0; i < 2000; i++) {
+            if (i == 1000) {
+                buffer.insertLine(0, "{ ( ) }");
+                buffer.setLine(250, "}}}");
+            }
+            int line = 1 + random.nextInt(buffer.getSize());
+            int column = 1 + random.nextInt(Math.max(buffer.getLine(line - 1).length(), 1));
+            char start = i % 2 == 0 ? '{' : '(';
+            char end = i % 2 == 0 ? '}' : ')';
+            scanning.getPosition().setLine(line);
+            scanning.getPosition().setColumn(column);
+            scanning.moveToMatching(start, end);
+            indexed.getPosition().setLine(line);
+            indexed.getPosition().setColumn(column);
+            indexed.moveToMatching(start, end);
+            assertEquals(scanning.getPosition().toString(), indexed.getPosition().toString());
+        }
+    }
+
+    /**
+     * Test of setTrigramIndexEnabled method, of class TextFileEditor.
+     */
+    public void testFindWithTrigramIndex() {
+        TextBuffer buffer = new TextFileBuffer();
+        Random random = new Random(4711);
+        for (int i = 0; i < 300; i++) {
+            StringBuilder line = new StringBuilder();
+            for (int j = random.nextInt(20); j > 0; j--) {
+                line.append("abc.(x ".charAt(random.nextInt(7)));
+            }
+            buffer.addLine(line.toString());
+        }
+        TextFileEditor scanning = new TextFileEditor();
+        scanning.setTextBuffer(buffer);
+        TextFileEditor indexed = new TextFileEditor();
+        indexed.setTextBuffer(buffer);
+        indexed.setTrigramIndexEnabled(true);
+
+        String[] regexps = {"abc", "cab", "a\\.\\(x", "(ab)?cab", "[ab]cab", "bca*", "ab|ca", "a.c"};
+        for (int i = 0; i < 200; i++) {
+            String regexp = regexps[i % regexps.length];
+            int line = 1 + random.nextInt(buffer.getSize());
+            scanning.setPosition(1, line);
+            indexed.setPosition(1, line);
+            assertEquals(scanning.findNext(regexp), indexed.findNext(regexp));
+            assertEquals(scanning.getPosition().toString(), indexed.getPosition().toString());
+            assertEquals(scanning.findLast(regexp), indexed.findLast(regexp));
+            assertEquals(scanning.getPosition().toString(), indexed.getPosition().toString());
+            Occurence scanned = scanning.findLastOccurence(regexp);
+            Occurence found = indexed.findLastOccurence(regexp);
+            assertEquals(scanned != null ? scanned.getPosition().toString() : null, found != null ? found.getPosition().toString() : null);
+            assertEquals(scanning.findAllLinesMatching(".*" + regexp + ".*").size(), indexed.findAllLinesMatching(".*" + regexp + ".*").size());
+
+            // Edits made by the editor keep the index up to date.
+            indexed.setPosition(1, line);
+            switch (i % 3) {
+                case 0: indexed.insertLine("xabcabx"); break;
+                case 1: indexed.deleteCurrentLine(); break;
+                default: indexed.replaceCurrentLine("ca.(xab");
+            }
+        }
+
+        BufferWrapper wrapper = new BufferWrapper(buffer);
+        TrigramIndex index = wrapper.getTrigramIndex();
+        wrapper.setLine(1, "zzzz");
+        wrapper.insertLine(2, "yyyy");
+        wrapper.removeLine(3);
+        assertSame(index, wrapper.getTrigramIndex());
+        assertTrue(Arrays.equals(new int[] {1}, index.candidateLines(Pattern.compile("zzz"))));
+        assertTrue(Arrays.equals(new int[] {2}, index.candidateLines(Pattern.compile("y{2}yyy"))));
+        assertNull(index.candidateLines(Pattern.compile("yy|zz")));
+
+        // Edits made directly on the buffer make the index be built again.
+        buffer.setLine(0, "yyyy");
+        assertNotSame(index, wrapper.getTrigramIndex());
+        assertTrue(Arrays.equals(new int[] {1, 2}, wrapper.getTrigramIndex().candidateLines(Pattern.compile("yyy"))));
+
+        // Ranges of lines removed or inserted keep the index up to date.
+        index = wrapper.getTrigramIndex();
+        for (int i = 0; i < 50; i++) {
+            int lineNo = 1 + random.nextInt(wrapper.getSize());
+            if (i % 2 == 0) {
+                wrapper.removeLines(lineNo, Math.min(1 + random.nextInt(20), wrapper.getSize() - lineNo + 1));
+            }
+            else {
+                List<String> lines = new ArrayList<String>();
+                for (int j = random.nextInt(30); j > 0; j--) {
+                    lines.add(j % 2 == 0 ? "xabcabx" : "ca.(xab " + j);
+                }
+                wrapper.insertLines(lineNo, lines);
+            }
+            assertSame(index, wrapper.getTrigramIndex());
+            for (String regexp : regexps) {
+                Pattern pattern = Pattern.compile(regexp);
+                int[] candidates = index.candidateLines(pattern);
+                List<Integer> scanned = new ArrayList<Integer>();
+                List<Integer> found = new ArrayList<Integer>();
+                for (int candidate = 1; candidate <= wrapper.getLastLine(); candidate++) {
+                    if (pattern.matcher(wrapper.getLineChars(candidate)).find()) {
+                        scanned.add(candidate);
+                    }
+                }
+                for (int candidate = TrigramIndex.nextLine(candidates, 1); candidate <= wrapper.getLastLine(); candidate = TrigramIndex.nextLine(candidates, candidate + 1)) {
+                    if (pattern.matcher(wrapper.getLineChars(candidate)).find()) {
+                        found.add(candidate);
+                    }
+                }
+                assertEquals(scanned, found);
+            }
+        }
+
+        // Edits ignored by a read only buffer must not be applied to the index.
+        TextBuffer readOnly = new TextFileBuffer();
+        readOnly.addLine("alpha beta");
+        readOnly.addLine("gamma delta");
+        readOnly.setReadOnly(true);
+        indexed = new TextFileEditor();
+        indexed.setTextBuffer(readOnly);
+        indexed.setTrigramIndexEnabled(true);
+        assertTrue(indexed.find("beta"));
+        indexed.replaceCurrentLine("zzz qqq");
+        indexed.deleteCurrentLine();
+        indexed.insertLine("zzz qqq");
+        assertTrue(indexed.find("beta"));
+        assertTrue(indexed.find("delta"));
+        assertEquals(2, indexed.getPosition().getLine());
+        assertFalse(indexed.find("zzz"));
     }
 
     /**
@@ -645,9 +965,80 @@ public class TextFileEditorTest extends TestCase {
      */
     public void testReplaceAllInFile() {
         TextFileEditor editor =  getTestBuffer1Editor();
-        editor.replaceAllInFile("some", "every");
+        assertEquals(3, editor.replaceAllInFile("some", "every"));
         assertTrue(editor.getLine().equals("import every.path.to.everywhere;"));
         assertTrue(editor.getLine(2).equals("import elsewhere.every.place;"));
+
+        long modifications = editor.getTextBuffer().getModificationCount();
+        assertEquals(0, editor.replaceAllInFile("nowhere", "somewhere"));
+        assertEquals(0, editor.replaceAllInFile("", "x"));
+        assertEquals(modifications, editor.getTextBuffer().getModificationCount());
+
+        assertEquals(2, editor.replaceAllInFile("every.", "every.every."));
+        assertEquals("import every.every.path.to.everywhere;", editor.getLine(1));
+    }
+
+    /**
+     * Test of replaceAllInFile method with several texts, of class TextFileEditor.
+     */
+    public void testReplaceAllInFileWithMap() {
+        TextFileEditor editor = new TextFileEditor();
+        TextBuffer buffer = new TextFileBuffer();
+        buffer.addLine("Hello ${name}, welcome to ${place}!");
+        buffer.addLine("${name}${name} ${nam} ${placeholder}");
+        buffer.addLine("Nothing here");
+        editor.setTextBuffer(buffer);
+
+        Map<String, String> replacements = new LinkedHashMap<String, String>();
+        replacements.put("${name}", "${place}");
+        replacements.put("${place}", "Earth");
+        replacements.put("${placeholder}", "[]");
+        replacements.put("${", "<");
+        Map<String, Integer> counts = editor.replaceAllInFile(replacements);
+
+        assertEquals("Hello ${place}, welcome to Earth!", editor.getLine(1));
+        assertEquals("${place}${place} <nam} []", editor.getLine(2));
+        assertEquals("Nothing here", editor.getLine(3));
+        assertEquals(Arrays.asList("${name}", "${place}", "${placeholder}", "${"), new ArrayList<String>(counts.keySet()));
+        assertEquals(Arrays.asList(3, 1, 1, 1), new ArrayList<Integer>(counts.values()));
+    }
+
+    /**
+     * Test of replaceAllInFile method with a pattern, of class TextFileEditor.
+     */
+    public void testReplaceAllInFileWithPattern() {
+        TextFileEditor editor = getTestBuffer1Editor();
+        assertEquals(2, editor.replaceAllInFile(Pattern.compile("@(\\w+)\\((\\w+)=(\\w+)\\)"), "@$1($3=$2)"));
+        assertEquals("@Test1(qwerty=blaha)", editor.getLine(4));
+        assertEquals("@Test2(wsx=qaz)", editor.getLine(5));
+        assertEquals(0, editor.replaceAllInFile(Pattern.compile("nowhere"), "x"));
+
+        TextBuffer loremIpsum = getLoremIpsumBuffer();
+        TextBuffer buffer = new TextFileBuffer();
+        TextBuffer copy = new TextFileBuffer();
+        for (int i = 0; i < 20000; i++) {
+            buffer.addLine(loremIpsum.getLine(i % loremIpsum.getSize()));
+            copy.addLine(loremIpsum.getLine(i % loremIpsum.getSize()));
+        }
+        TextFileEditor sequential = new TextFileEditor();
+        sequential.setTextBuffer(buffer);
+        TextFileEditor parallel = new TextFileEditor();
+        parallel.setTextBuffer(copy);
+
+        Pattern pattern = Pattern.compile("(\\w+)or\\b");
+        int count = sequential.replaceAllInFile(pattern, "<$1>");
+        assertEquals(12000, count);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(count, parallel.replaceAllInFileParallel(pattern, "<$1>", pool));
+        }
+        finally {
+            pool.shutdown();
+        }
+        assertEquals("Lorem ipsum <dol> sit amet, consectetur adipisicing elit, sed do eiusmod <temp> incididunt ut labore ", parallel.getLine(1));
+        for (int i = 1; i <= 20000; i++) {
+            assertEquals(sequential.getLine(i), parallel.getLine(i));
+        }
     }
 
     /**
@@ -777,4 +1168,40 @@ public class TextFileEditorTest extends TestCase {
         editor.moveToTopOfFile();
         assertTrue(editor.find("<version>5.8.2-SNAPSHOT</version>"));
     }
+
+    /**
+     * Test of StreamEditor.
+     */
+    public void testStreamEditor() throws IOException {
+        Charset utf8 = Charset.forName("UTF-8");
+        String input =
+                "import some.path.to.somewhere;\n" +
+                "import elsewhere.some.place;\r\n" +
+                "\n" +
+                "@Test1(blaha=qwerty)\r" +
+                "@Test2(qaz=wsx)\n" +
+                "  \n" +
+                "One Two Three Four Five Six Seven Eight Nine Ten";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = new StreamEditor()
+                .replaceAll("some", "every")
+                .deleteLinesMatching("\\s*")
+                .insertBefore("@Test1.*", "// Tests")
+                .insertAfter("import .*", "// Imported")
+                .replaceBetween("(qaz=", ")", "edc")
+                .edit(new ByteArrayInputStream(input.getBytes(utf8)), out, utf8);
+
+        String separator = System.lineSeparator();
+        String expected =
+                "import every.path.to.everywhere;" + separator +
+                "// Imported" + separator +
+                "import elsewhere.every.place;" + separator +
+                "// Imported" + separator +
+                "// Tests" + separator +
+                "@Test1(blaha=qwerty)" + separator +
+                "@Test2(qaz=edc)" + separator +
+                "One Two Three Four Five Six Seven Eight Nine Ten" + separator;
+        assertEquals(expected, new String(out.toByteArray(), utf8));
+        assertEquals(8, written);
+    }
 }